@@ -0,0 +1,100 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.BUCKET;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.CREDENTIALS;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.ENDPOINT;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.ITEM_KEY;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.OBJECT_KEY;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.REGION;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.TABLE;
+
+import dev.ancaghenade.shipmentlistdemo.config.SdkHttpClients;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+/**
+ * The async HTTP clients with the same load as {@link SyncHttpTransportBenchmark}, each thread
+ * waiting for its call, so the numbers compare with the sync clients. The downloads are streamed
+ * to a null stream, as the reactive endpoints stream them to the response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(TransportFixture.MAX_CONNECTIONS)
+@Fork(1)
+public class AsyncHttpTransportBenchmark {
+
+  @Param({"netty", "crt"})
+  private String client;
+
+  private DynamoDbAsyncClient dynamoDb;
+  private S3AsyncClient s3;
+  private byte[] upload;
+
+  @Setup
+  public void setup() {
+    TransportFixture.createData();
+    SdkHttpClients httpClients = TransportFixture.httpClients(client);
+    dynamoDb = DynamoDbAsyncClient.builder()
+        .region(REGION)
+        .credentialsProvider(CREDENTIALS)
+        .endpointOverride(ENDPOINT)
+        .httpClientBuilder(httpClients.asyncClient("dynamodb-async"))
+        .build();
+    s3 = S3AsyncClient.builder()
+        .region(REGION)
+        .credentialsProvider(CREDENTIALS)
+        .endpointOverride(ENDPOINT)
+        .forcePathStyle(true)
+        .httpClientBuilder(httpClients.asyncClient("s3-async"))
+        .build();
+    upload = TransportFixture.randomBytes(1024 * 1024);
+  }
+
+  @TearDown
+  public void tearDown() {
+    dynamoDb.close();
+    s3.close();
+  }
+
+  @Benchmark
+  public GetItemResponse getItem() {
+    return dynamoDb.getItem(get -> get.tableName(TABLE).key(ITEM_KEY)).join();
+  }
+
+  @Benchmark
+  public long getObject() throws IOException {
+    try (InputStream content = s3.getObject(get -> get.bucket(BUCKET).key(OBJECT_KEY),
+        AsyncResponseTransformer.toBlockingInputStream()).join()) {
+      return content.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  @Benchmark
+  public String putObject() {
+    return s3.putObject(put -> put.bucket(BUCKET).key("uploads/" + Thread.currentThread().getId())
+        .contentType("image/jpeg"), AsyncRequestBody.fromBytes(upload)).join().eTag();
+  }
+}
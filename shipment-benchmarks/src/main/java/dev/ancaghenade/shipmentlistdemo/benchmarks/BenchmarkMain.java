@@ -0,0 +1,38 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected on the command line, like the JMH launcher, with the GC profiler
+ * always attached, so every result reports gc.alloc.rate.norm (bytes allocated per operation)
+ * next to the throughput.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+        || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+      Main.main(args);
+      return;
+    }
+    // -prof gc given explicitly must not attach a second instance
+    boolean gcProfiled = commandLine.getProfilers().stream()
+        .anyMatch(profiler -> profiler.getKlass().equals("gc")
+            || profiler.getKlass().equals(GCProfiler.class.getName()));
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (!gcProfiled) {
+      options.addProfiler(GCProfiler.class);
+    }
+    new Runner(options.build()).run();
+  }
+}
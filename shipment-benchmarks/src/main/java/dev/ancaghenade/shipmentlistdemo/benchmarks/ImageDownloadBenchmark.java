@@ -0,0 +1,128 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ancaghenade.shipmentlistdemo.buckets.BucketName;
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentImage;
+import dev.ancaghenade.shipmentlistdemo.repository.DynamoDBService;
+import dev.ancaghenade.shipmentlistdemo.repository.S3StorageService;
+import dev.ancaghenade.shipmentlistdemo.repository.ShipmentCache;
+import dev.ancaghenade.shipmentlistdemo.service.PlaceholderImages;
+import dev.ancaghenade.shipmentlistdemo.service.ShipmentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+/**
+ * ShipmentService.downloadShipmentImage with S3 and DynamoDB stubbed out, the body piped to a null
+ * stream the way the controller pipes it to the client. The shipment lookup is served by the
+ * shipment cache after the first call, as it is for popular images. The placeholder variant is
+ * the path for shipments without an image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageDownloadBenchmark {
+
+  private static final List<MediaType> ACCEPT = List.of(MediaType.IMAGE_JPEG);
+
+  // 64 KB and 4 MB
+  @Param({"65536", "4194304"})
+  private int imageSize;
+
+  private TaskExecutors taskExecutors;
+  private DynamoDBService dynamoDBService;
+  private S3StorageService s3StorageService;
+  private ShipmentService shipmentService;
+
+  @Setup
+  public void setup() throws IOException {
+    Shipment withImage = Shipments.shipment(1);
+    Shipment withoutImage = Shipments.shipment(2);
+    withoutImage.setImageLink(null);
+
+    StubS3Client s3 = new StubS3Client();
+    byte[] image = new byte[imageSize];
+    ThreadLocalRandom.current().nextBytes(image);
+    s3.putContent(withImage.getImageLink(), image, MediaType.IMAGE_JPEG_VALUE);
+
+    StubDynamoDbClient dynamoDb = new StubDynamoDbClient();
+    DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+        .dynamoDbClient(dynamoDb)
+        .build();
+    DynamoDbTable<Shipment> shipmentTable = enhancedClient.table("shipment",
+        TableSchema.fromBean(Shipment.class));
+    dynamoDb.putItem(shipmentTable.tableSchema().itemToMap(withImage, true));
+    dynamoDb.putItem(shipmentTable.tableSchema().itemToMap(withoutImage, true));
+
+    BucketName bucketName = new BucketName() {
+      @Override
+      public String getShipmentPictureBucket() {
+        return "shipment-list-demo-bucket";
+      }
+    };
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    taskExecutors = new TaskExecutors(false);
+    dynamoDBService = new DynamoDBService(enhancedClient, dynamoDb, shipmentTable,
+        new ShipmentCache(10_000, Duration.ofMinutes(5)), List.of(), taskExecutors, 1);
+    s3StorageService = new S3StorageService(s3, bucketName, Optional.empty(), taskExecutors,
+        meterRegistry, DataSize.ofMegabytes(16), DataSize.ofMegabytes(8), 4, 32);
+    shipmentService = new ShipmentService(dynamoDBService, s3StorageService, Optional.empty(),
+        Optional.empty(), Optional.empty(), Optional.empty(),
+        new PlaceholderImages(new DefaultResourceLoader(), new StandardEnvironment()),
+        taskExecutors, new ObjectMapper(), meterRegistry, "no-cache", 1);
+  }
+
+  @TearDown
+  public void tearDown() {
+    shipmentService.shutdown();
+    s3StorageService.shutdown();
+    dynamoDBService.shutdown();
+  }
+
+  @Benchmark
+  public long download() throws IOException {
+    return transfer(shipmentService.downloadShipmentImage("shipment-1", ACCEPT, null, null, null));
+  }
+
+  @Benchmark
+  public long placeholder() throws IOException {
+    return transfer(shipmentService.downloadShipmentImage("shipment-2", ACCEPT, null, null, null));
+  }
+
+  private static long transfer(ShipmentImage image) throws IOException {
+    try (InputStream content = image.getContent()) {
+      return content.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+}
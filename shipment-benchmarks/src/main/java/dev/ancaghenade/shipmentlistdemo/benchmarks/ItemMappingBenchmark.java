@@ -0,0 +1,170 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentTableSchemas;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.document.EnhancedDocument;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Converting a shipment to and from the attribute map DynamoDB sends, once per item on every
+ * write, read and scan page. The bean schema and the static schema the application can be
+ * configured with are compared with going through JSON and an EnhancedDocument, and with
+ * hand-written conversion as the lower bound. Building the
+ * bean schema again in a warm JVM is measured too, the first build is in
+ * {@link SchemaStartupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemMappingBenchmark {
+
+  private TableSchema<Shipment> beanSchema;
+  private ObjectMapper objectMapper;
+  private Shipment shipment;
+  private Map<String, AttributeValue> item;
+
+  @Setup
+  public void setup() {
+    beanSchema = TableSchema.fromBean(Shipment.class);
+    objectMapper = new ObjectMapper();
+    shipment = Shipments.shipment(42);
+    item = beanSchema.itemToMap(shipment, true);
+  }
+
+  @Benchmark
+  public TableSchema<Shipment> beanSchemaCreate() {
+    return TableSchema.fromBean(Shipment.class);
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> beanItemToMap() {
+    return beanSchema.itemToMap(shipment, true);
+  }
+
+  @Benchmark
+  public Shipment beanMapToItem() {
+    return beanSchema.mapToItem(item);
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> staticItemToMap() {
+    return ShipmentTableSchemas.SHIPMENT.itemToMap(shipment, true);
+  }
+
+  @Benchmark
+  public Shipment staticMapToItem() {
+    return ShipmentTableSchemas.SHIPMENT.mapToItem(item);
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> documentItemToMap() throws JsonProcessingException {
+    // the index keys are @JsonIgnore, so this route would also have to add them
+    return EnhancedDocument.fromJson(objectMapper.writeValueAsString(shipment)).toMap();
+  }
+
+  @Benchmark
+  public Shipment documentMapToItem() throws JsonProcessingException {
+    return objectMapper.readValue(EnhancedDocument.fromAttributeValueMap(item).toJson(),
+        Shipment.class);
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> manualItemToMap() {
+    Map<String, AttributeValue> map = new HashMap<>(16);
+    map.put("shipmentId", AttributeValue.fromS(shipment.getShipmentId()));
+    putParticipant(map, "recipient", shipment.getRecipient());
+    putParticipant(map, "sender", shipment.getSender());
+    if (shipment.getWeight() != null) {
+      map.put("weight", AttributeValue.fromN(shipment.getWeight().toString()));
+    }
+    putString(map, "imageLink", shipment.getImageLink());
+    if (shipment.getVersion() != null) {
+      map.put("version", AttributeValue.fromN(shipment.getVersion().toString()));
+    }
+    putString(map, "recipientCity", shipment.getRecipientCity());
+    putString(map, "recipientPostalCode", shipment.getRecipientPostalCode());
+    putString(map, "senderCity", shipment.getSenderCity());
+    putString(map, "senderPostalCode", shipment.getSenderPostalCode());
+    return map;
+  }
+
+  @Benchmark
+  public Shipment manualMapToItem() {
+    AttributeValue weight = item.get("weight");
+    AttributeValue version = item.get("version");
+    return Shipment.builder()
+        .shipmentId(string(item, "shipmentId"))
+        .recipient(participant(item.get("recipient")))
+        .sender(participant(item.get("sender")))
+        .weight(weight == null ? null : Double.valueOf(weight.n()))
+        .imageLink(string(item, "imageLink"))
+        .version(version == null ? null : Long.valueOf(version.n()))
+        .build();
+  }
+
+  private static void putParticipant(Map<String, AttributeValue> map, String name,
+      Participant participant) {
+    if (participant == null) {
+      return;
+    }
+    Map<String, AttributeValue> fields = new HashMap<>(4);
+    putString(fields, "name", participant.getName());
+    Address address = participant.getAddress();
+    if (address != null) {
+      Map<String, AttributeValue> addressFields = new HashMap<>(8);
+      putString(addressFields, "postalCode", address.getPostalCode());
+      putString(addressFields, "street", address.getStreet());
+      putString(addressFields, "number", address.getNumber());
+      putString(addressFields, "city", address.getCity());
+      putString(addressFields, "additionalInfo", address.getAdditionalInfo());
+      fields.put("address", AttributeValue.fromM(addressFields));
+    }
+    map.put(name, AttributeValue.fromM(fields));
+  }
+
+  private static void putString(Map<String, AttributeValue> map, String name, String value) {
+    if (value != null) {
+      map.put(name, AttributeValue.fromS(value));
+    }
+  }
+
+  private static Participant participant(AttributeValue value) {
+    if (value == null) {
+      return null;
+    }
+    Map<String, AttributeValue> fields = value.m();
+    AttributeValue address = fields.get("address");
+    return new Participant(string(fields, "name"), address == null ? null : new Address(
+        string(address.m(), "postalCode"),
+        string(address.m(), "street"),
+        string(address.m(), "number"),
+        string(address.m(), "city"),
+        string(address.m(), "additionalInfo")));
+  }
+
+  private static String string(Map<String, AttributeValue> map, String name) {
+    AttributeValue value = map.get(name);
+    return value == null ? null : value.s();
+  }
+}
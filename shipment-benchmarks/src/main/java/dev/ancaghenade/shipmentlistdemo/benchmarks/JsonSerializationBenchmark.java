@@ -0,0 +1,83 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Serializing the shipment list as GET /api/shipment does, with the mapper configured like Spring
+ * Boot's, compared with a prebuilt writer and with streaming into the response without the
+ * intermediate byte array. Writing to a null stream still encodes every byte, it only skips the
+ * copy to the socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+  @Param({"100", "10000"})
+  private int shipments;
+
+  private ObjectMapper objectMapper;
+  private ObjectWriter listWriter;
+  private ObjectWriter shipmentWriter;
+  private List<Shipment> payload;
+
+  @Setup
+  public void setup() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    listWriter = objectMapper.writerFor(new TypeReference<List<Shipment>>() {
+    });
+    shipmentWriter = objectMapper.writerFor(Shipment.class);
+    payload = Shipments.shipments(shipments);
+  }
+
+  @Benchmark
+  public byte[] mapperToBytes() throws IOException {
+    return objectMapper.writeValueAsBytes(payload);
+  }
+
+  @Benchmark
+  public byte[] typedWriterToBytes() throws IOException {
+    return listWriter.writeValueAsBytes(payload);
+  }
+
+  @Benchmark
+  public void typedWriterToStream() throws IOException {
+    listWriter.writeValue(OutputStream.nullOutputStream(), payload);
+  }
+
+  @Benchmark
+  public void elementsToStream() throws IOException {
+    // one element at a time, as a paged or streamed response would write them
+    try (JsonGenerator generator = objectMapper.getFactory()
+        .createGenerator(OutputStream.nullOutputStream());
+        SequenceWriter sequence = shipmentWriter.writeValuesAsArray(generator)) {
+      for (Shipment shipment : payload) {
+        sequence.write(shipment);
+      }
+    }
+  }
+}
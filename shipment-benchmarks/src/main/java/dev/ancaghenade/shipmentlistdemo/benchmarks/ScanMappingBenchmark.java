@@ -0,0 +1,61 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentTableSchemas;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+/**
+ * A scan through the enhanced client against a stubbed DynamoDB returning one page, so the score is
+ * the per-item mapping cost of the configured table schema plus the enhanced client's own
+ * overhead, the way DynamoDBService reads the whole table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanMappingBenchmark {
+
+  // shipment.table-schema
+  @Param({"bean", "static"})
+  private String schema;
+
+  @Param({"100", "1000"})
+  private int items;
+
+  private DynamoDbTable<Shipment> shipmentTable;
+
+  @Setup
+  public void setup() {
+    TableSchema<Shipment> tableSchema = schema.equals("static") ? ShipmentTableSchemas.SHIPMENT
+        : TableSchema.fromBean(Shipment.class);
+    StubDynamoDbClient dynamoDb = new StubDynamoDbClient();
+    Shipments.shipments(items).forEach(
+        shipment -> dynamoDb.putItem(tableSchema.itemToMap(shipment, true)));
+    shipmentTable = DynamoDbEnhancedClient.builder()
+        .dynamoDbClient(dynamoDb)
+        .build()
+        .table("shipment", tableSchema);
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    shipmentTable.scan().items().forEach(blackhole::consume);
+  }
+}
@@ -0,0 +1,37 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentTableSchemas;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+/**
+ * The first table schema built in a fresh JVM, what DynamoDBConfig pays at startup including the
+ * class loading, for the bean schema also the introspection. Every fork measures exactly one
+ * build.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class SchemaStartupBenchmark {
+
+  @Benchmark
+  public TableSchema<Shipment> beanSchema() {
+    return TableSchema.fromBean(Shipment.class);
+  }
+
+  @Benchmark
+  public TableSchema<Shipment> staticSchema() {
+    // the schemas are built when the holder class is initialized
+    return ShipmentTableSchemas.SHIPMENT;
+  }
+}
@@ -0,0 +1,48 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Fully populated shipments, the shape the application stores, with values that differ per index
+ * so nothing is shared between items.
+ */
+final class Shipments {
+
+  private static final String[] CITIES = {"Berlin", "Lyon", "Porto", "Zürich", "Kraków"};
+
+  private Shipments() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  static Shipment shipment(int i) {
+    return Shipment.builder()
+        .shipmentId("shipment-" + i)
+        .recipient(participant("Recipient " + i, i))
+        .sender(participant("Sender " + i, i + 1))
+        .weight(0.5 + i % 100)
+        .imageLink("shipment-" + i + "/image-" + i + ".jpg")
+        .version((long) i % 7)
+        .build();
+  }
+
+  static List<Shipment> shipments(int count) {
+    return IntStream.range(0, count).mapToObj(Shipments::shipment).toList();
+  }
+
+  private static Participant participant(String name, int i) {
+    return Participant.builder()
+        .name(name)
+        .address(Address.builder()
+            .postalCode(String.valueOf(10000 + i % 90000))
+            .street("Main Street")
+            .number(String.valueOf(i % 300))
+            .city(CITIES[i % CITIES.length])
+            .additionalInfo(i % 3 == 0 ? "Ring twice" : null)
+            .build())
+        .build();
+  }
+}
@@ -0,0 +1,94 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.service.SseBroadcaster;
+import dev.ancaghenade.shipmentlistdemo.service.SseBroadcaster.SlowConsumerPolicy;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * One broadcast to every subscriber of /push-endpoint, for growing numbers of subscribers:
+ * publish is how long the publishing (SQS listener) thread is held, fanOut lasts until the last
+ * subscriber has the event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SseBroadcastBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  private int subscribers;
+
+  private SseBroadcaster broadcaster;
+  private volatile CountDownLatch delivered;
+
+  @Setup
+  public void setup() {
+    broadcaster = new SseBroadcaster(new TaskExecutors(false), 64, 4, Duration.ofMinutes(1),
+        SlowConsumerPolicy.DROP_OLDEST);
+    for (int i = 0; i < subscribers; i++) {
+      broadcaster.subscribe(new CountingEmitter());
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void expectDeliveries() {
+    delivered = new CountDownLatch(subscribers);
+  }
+
+  @TearDown(Level.Invocation)
+  public void awaitDeliveries() throws InterruptedException {
+    // not measured for publish, but the next invocation must not overlap this one
+    if (!delivered.await(30, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Broadcast did not reach every subscriber");
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    broadcaster.shutdown();
+  }
+
+  @Benchmark
+  public void publish() {
+    broadcaster.broadcast("shipment-id");
+  }
+
+  @Benchmark
+  public void fanOut() throws InterruptedException {
+    broadcaster.broadcast("shipment-id");
+    awaitDeliveries();
+  }
+
+  private final class CountingEmitter extends SseEmitter {
+
+    private CountingEmitter() {
+      super(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) {
+      // stands in for a client that reads as fast as the server writes
+      builder.build();
+      delivered.countDown();
+    }
+  }
+}
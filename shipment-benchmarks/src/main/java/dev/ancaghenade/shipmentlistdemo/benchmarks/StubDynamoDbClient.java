@@ -0,0 +1,52 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/**
+ * DynamoDB without a network: GetItem and Scan answer from items registered up front, keyed by
+ * their shipmentId; a scan returns every item in a single page. Other calls keep the interface's
+ * UnsupportedOperationException.
+ */
+class StubDynamoDbClient implements DynamoDbClient {
+
+  private final Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+
+  void putItem(Map<String, AttributeValue> item) {
+    items.put(item.get("shipmentId").s(), item);
+  }
+
+  @Override
+  public GetItemResponse getItem(GetItemRequest request) {
+    return GetItemResponse.builder()
+        .item(items.get(request.key().get("shipmentId").s()))
+        .build();
+  }
+
+  @Override
+  public ScanResponse scan(ScanRequest request) {
+    List<Map<String, AttributeValue>> page = List.copyOf(items.values());
+    return ScanResponse.builder()
+        .items(page)
+        .count(page.size())
+        .scannedCount(page.size())
+        .build();
+  }
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  @Override
+  public void close() {
+    items.clear();
+  }
+}
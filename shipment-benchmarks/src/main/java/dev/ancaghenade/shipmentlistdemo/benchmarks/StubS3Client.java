@@ -0,0 +1,108 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * S3 without a network: request bodies are read to the end and discarded, GETs are answered from
+ * objects registered up front. Only the calls S3StorageService makes for whole-object uploads and
+ * downloads are implemented, the others keep the interface's UnsupportedOperationException.
+ */
+class StubS3Client implements S3Client {
+
+  private record StoredObject(byte[] content, String contentType, Instant lastModified) {
+
+  }
+
+  private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+  void putContent(String key, byte[] content, String contentType) {
+    objects.put(key, new StoredObject(content, contentType, Instant.now()));
+  }
+
+  @Override
+  public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+    consume(body);
+    return PutObjectResponse.builder().eTag("\"put\"").build();
+  }
+
+  @Override
+  public CreateMultipartUploadResponse createMultipartUpload(
+      CreateMultipartUploadRequest request) {
+    return CreateMultipartUploadResponse.builder().uploadId("upload").build();
+  }
+
+  @Override
+  public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+    consume(body);
+    return UploadPartResponse.builder().eTag("\"part-" + request.partNumber() + "\"").build();
+  }
+
+  @Override
+  public CompleteMultipartUploadResponse completeMultipartUpload(
+      CompleteMultipartUploadRequest request) {
+    return CompleteMultipartUploadResponse.builder().eTag("\"complete\"").build();
+  }
+
+  @Override
+  public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+    return AbortMultipartUploadResponse.builder().build();
+  }
+
+  @Override
+  public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+    StoredObject object = objects.get(request.key());
+    if (object == null) {
+      throw NoSuchKeyException.builder().message("No such key " + request.key()).build();
+    }
+    GetObjectResponse response = GetObjectResponse.builder()
+        .contentType(object.contentType())
+        .contentLength((long) object.content().length)
+        .eTag("\"" + Integer.toHexString(System.identityHashCode(object)) + "\"")
+        .lastModified(object.lastModified())
+        .build();
+    return new ResponseInputStream<>(response,
+        AbortableInputStream.create(new ByteArrayInputStream(object.content())));
+  }
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  @Override
+  public void close() {
+    objects.clear();
+  }
+
+  private static void consume(RequestBody body) {
+    try (InputStream content = body.contentStreamProvider().newStream()) {
+      content.transferTo(OutputStream.nullOutputStream());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
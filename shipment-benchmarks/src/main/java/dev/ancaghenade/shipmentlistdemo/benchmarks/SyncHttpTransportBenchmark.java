@@ -0,0 +1,100 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.BUCKET;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.CREDENTIALS;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.ENDPOINT;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.ITEM_KEY;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.OBJECT_KEY;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.REGION;
+import static dev.ancaghenade.shipmentlistdemo.benchmarks.TransportFixture.TABLE;
+
+import dev.ancaghenade.shipmentlistdemo.config.SdkHttpClients;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+/**
+ * The sync HTTP clients under concurrent load against LocalStack: small DynamoDB reads, where
+ * connection reuse and per request overhead dominate, and 8 MB S3 downloads and 1 MB uploads,
+ * where streaming does. Compare the latency with the allocation per operation of each client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(TransportFixture.MAX_CONNECTIONS)
+@Fork(1)
+public class SyncHttpTransportBenchmark {
+
+  @Param({"apache", "url-connection", "crt"})
+  private String client;
+
+  private DynamoDbClient dynamoDb;
+  private S3Client s3;
+  private byte[] upload;
+
+  @Setup
+  public void setup() {
+    TransportFixture.createData();
+    SdkHttpClients httpClients = TransportFixture.httpClients(client);
+    dynamoDb = DynamoDbClient.builder()
+        .region(REGION)
+        .credentialsProvider(CREDENTIALS)
+        .endpointOverride(ENDPOINT)
+        .httpClientBuilder(httpClients.syncClient("dynamodb"))
+        .build();
+    s3 = S3Client.builder()
+        .region(REGION)
+        .credentialsProvider(CREDENTIALS)
+        .endpointOverride(ENDPOINT)
+        .forcePathStyle(true)
+        .httpClientBuilder(httpClients.syncClient("s3"))
+        .build();
+    upload = TransportFixture.randomBytes(1024 * 1024);
+  }
+
+  @TearDown
+  public void tearDown() {
+    dynamoDb.close();
+    s3.close();
+  }
+
+  @Benchmark
+  public GetItemResponse getItem() {
+    return dynamoDb.getItem(get -> get.tableName(TABLE).key(ITEM_KEY));
+  }
+
+  @Benchmark
+  public long getObject() throws IOException {
+    try (ResponseInputStream<GetObjectResponse> content =
+        s3.getObject(get -> get.bucket(BUCKET).key(OBJECT_KEY))) {
+      return content.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  @Benchmark
+  public String putObject() {
+    return s3.putObject(put -> put.bucket(BUCKET).key("uploads/" + Thread.currentThread().getId())
+        .contentType("image/jpeg"), RequestBody.fromBytes(upload)).eTag();
+  }
+}
@@ -0,0 +1,107 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import dev.ancaghenade.shipmentlistdemo.config.SdkHttpClients;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.mock.env.MockEnvironment;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.BucketAlreadyOwnedByYouException;
+
+/**
+ * The endpoint, credentials and data shared by the HTTP transport benchmarks: a table holding one
+ * small shipment item and a bucket holding one large object. These benchmarks need LocalStack (or
+ * AWS) running, at BENCHMARK_ENDPOINT or http://localhost:4566.
+ */
+final class TransportFixture {
+
+  static final URI ENDPOINT = URI.create(
+      System.getenv().getOrDefault("BENCHMARK_ENDPOINT", "http://localhost:4566"));
+  static final Region REGION = Region.US_EAST_1;
+  static final AwsCredentialsProvider CREDENTIALS = StaticCredentialsProvider.create(
+      AwsBasicCredentials.create("test", "test"));
+
+  static final String TABLE = "shipment-transport-benchmark";
+  static final String BUCKET = "shipment-transport-benchmark";
+  static final String OBJECT_KEY = "shipment-1/image-1.jpg";
+  static final Map<String, AttributeValue> ITEM_KEY =
+      Map.of("shipmentId", AttributeValue.fromS("shipment-1"));
+  // 8 MB, the size of a large shipment image
+  static final int OBJECT_SIZE = 8 * 1024 * 1024;
+  // one per benchmark thread, so no thread waits for a connection
+  static final int MAX_CONNECTIONS = 8;
+
+  private TransportFixture() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * The HTTP clients of every service set to the given client, the way the application reads
+   * them from shipment.http.
+   */
+  static SdkHttpClients httpClients(String client) {
+    return new SdkHttpClients(new MockEnvironment()
+        .withProperty("shipment.http.default.client", client)
+        .withProperty("shipment.http.default.max-connections", String.valueOf(MAX_CONNECTIONS))
+        .withProperty("shipment.http.default.tcp-keep-alive", "true"));
+  }
+
+  /**
+   * Creates the table and the bucket when missing and writes the item and the object, with the
+   * default clients so every transport reads the same data.
+   */
+  static void createData() {
+    try (DynamoDbClient dynamoDb = DynamoDbClient.builder()
+        .region(REGION)
+        .credentialsProvider(CREDENTIALS)
+        .endpointOverride(ENDPOINT)
+        .build()) {
+      try {
+        dynamoDb.createTable(table -> table.tableName(TABLE)
+            .keySchema(key -> key.attributeName("shipmentId").keyType(KeyType.HASH))
+            .attributeDefinitions(attribute -> attribute.attributeName("shipmentId")
+                .attributeType(ScalarAttributeType.S))
+            .billingMode(BillingMode.PAY_PER_REQUEST));
+        dynamoDb.waiter().waitUntilTableExists(table -> table.tableName(TABLE));
+      } catch (ResourceInUseException e) {
+        // created by an earlier fork
+      }
+      dynamoDb.putItem(put -> put.tableName(TABLE).item(Map.of(
+          "shipmentId", AttributeValue.fromS("shipment-1"),
+          "weight", AttributeValue.fromN("2.5"),
+          "imageLink", AttributeValue.fromS(OBJECT_KEY))));
+    }
+
+    try (S3Client s3 = S3Client.builder()
+        .region(REGION)
+        .credentialsProvider(CREDENTIALS)
+        .endpointOverride(ENDPOINT)
+        .forcePathStyle(true)
+        .build()) {
+      try {
+        s3.createBucket(bucket -> bucket.bucket(BUCKET));
+      } catch (BucketAlreadyOwnedByYouException e) {
+        // created by an earlier fork
+      }
+      s3.putObject(put -> put.bucket(BUCKET).key(OBJECT_KEY).contentType("image/jpeg"),
+          RequestBody.fromBytes(randomBytes(OBJECT_SIZE)));
+    }
+  }
+
+  static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,96 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.Suggestion;
+import dev.ancaghenade.shipmentlistdemo.repository.TypeaheadIndex;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups in the typeahead index filled with 200,000 shipments whose names and cities repeat a
+ * lot, so one letter prefixes match most of the index, the worst case of the range reads. Sample
+ * time mode reports the percentiles, p99 included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeaheadBenchmark {
+
+  private static final int SHIPMENTS = 200_000;
+  private static final String[] FIRST_NAMES = {"Harry", "Hermione", "Ron", "Ginny", "Luna",
+      "Neville", "Draco", "Cho", "Cedric", "Fleur"};
+  private static final String[] LAST_NAMES = {"Potter", "Granger", "Weasley", "Lovegood",
+      "Longbottom", "Malfoy", "Chang", "Diggory", "Delacour", "Dursley"};
+  private static final String[] CITIES = {"London", "Little Whinging", "Ottery St Catchpole",
+      "Hogsmeade", "Godric's Hollow", "Zürich", "Paris", "Lyon", "Porto", "New York City"};
+
+  @Param({"1", "3", "full"})
+  private String prefixLength;
+
+  private TypeaheadIndex index;
+  private List<String> queries;
+  private int next;
+
+  @Setup
+  public void setup() {
+    // the table is never scanned, start() is not called
+    index = new TypeaheadIndex(null, new TaskExecutors(false));
+    Random random = new Random(42);
+    for (int i = 0; i < SHIPMENTS; i++) {
+      index.onSaved(shipment("typeahead-" + i, random));
+    }
+    queries = List.of(LAST_NAMES).stream()
+        .map(name -> "full".equals(prefixLength)
+            ? name : name.substring(0, Integer.parseInt(prefixLength)))
+        .toList();
+  }
+
+  @Benchmark
+  public List<Suggestion> suggest() {
+    next = (next + 1) % queries.size();
+    return index.suggest(queries.get(next), 10);
+  }
+
+  private static Shipment shipment(String shipmentId, Random random) {
+    return Shipment.builder()
+        .shipmentId(shipmentId)
+        .weight(1.0)
+        .recipient(participant(name(random) + " " + random.nextInt(1000), pick(CITIES, random)))
+        .sender(participant(name(random), pick(CITIES, random)))
+        .build();
+  }
+
+  private static String name(Random random) {
+    return pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random);
+  }
+
+  private static String pick(String[] values, Random random) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static Participant participant(String name, String city) {
+    return Participant.builder()
+        .name(name)
+        .address(Address.builder().street("Main Street").number("1").city(city)
+            .postalCode("12345").build())
+        .build();
+  }
+}
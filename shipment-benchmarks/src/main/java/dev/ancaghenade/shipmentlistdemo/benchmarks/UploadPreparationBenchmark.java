@@ -0,0 +1,88 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import dev.ancaghenade.shipmentlistdemo.buckets.BucketName;
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.repository.S3StorageService;
+import dev.ancaghenade.shipmentlistdemo.util.FileUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * The upload path up to the network: S3StorageService.save against an S3 client that only reads
+ * the request bodies, and FileUtil cutting the upload into parts on its own. The small image goes
+ * out as one PutObject, the large one crosses the multipart threshold and is buffered part by
+ * part, which is what the allocation rate shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadPreparationBenchmark {
+
+  private static final DataSize MULTIPART_THRESHOLD = DataSize.ofMegabytes(16);
+  private static final DataSize PART_SIZE = DataSize.ofMegabytes(8);
+
+  // 256 KB and 32 MB
+  @Param({"262144", "33554432"})
+  private int size;
+
+  private S3StorageService s3StorageService;
+  private MockMultipartFile file;
+
+  @Setup
+  public void setup() {
+    BucketName bucketName = new BucketName() {
+      @Override
+      public String getShipmentPictureBucket() {
+        return "shipment-list-demo-bucket";
+      }
+    };
+    s3StorageService = new S3StorageService(new StubS3Client(), bucketName, Optional.empty(),
+        new TaskExecutors(false), new SimpleMeterRegistry(), MULTIPART_THRESHOLD, PART_SIZE, 4, 32);
+    byte[] content = new byte[size];
+    ThreadLocalRandom.current().nextBytes(content);
+    file = new MockMultipartFile("file", "image.jpg", "image/jpeg", content);
+  }
+
+  @TearDown
+  public void tearDown() {
+    s3StorageService.shutdown();
+  }
+
+  @Benchmark
+  public void save() throws IOException {
+    s3StorageService.save("shipment-1", "image.jpg", file);
+  }
+
+  @Benchmark
+  public long readParts() throws IOException {
+    int partSize = Math.toIntExact(PART_SIZE.toBytes());
+    long read = 0;
+    try (InputStream inputStream = file.getInputStream()) {
+      while (read < size) {
+        read += FileUtil.readPart(inputStream, (int) Math.min(partSize, size - read)).length;
+      }
+    }
+    return read;
+  }
+}
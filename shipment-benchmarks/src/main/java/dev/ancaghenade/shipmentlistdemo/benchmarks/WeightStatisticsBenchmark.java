@@ -0,0 +1,85 @@
+package dev.ancaghenade.shipmentlistdemo.benchmarks;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.WeightStats;
+import dev.ancaghenade.shipmentlistdemo.repository.WeightStatistics;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads and writes of the weight statistics kept for 500,000 shipments over 1,000 cities. The
+ * write moves a shipment between weights, so it regularly takes out a city's min or max, the case
+ * that used to trigger a recompute on the next read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeightStatisticsBenchmark {
+
+  private static final int SHIPMENTS = 500_000;
+  private static final int CITIES = 1_000;
+
+  private WeightStatistics statistics;
+  private Random random;
+
+  @Setup
+  public void setup() {
+    // the table is never scanned, start() is not called
+    statistics = new WeightStatistics(null, new TaskExecutors(false),
+        new double[]{1, 2, 5, 10, 20, 50});
+    random = new Random(42);
+    for (int i = 0; i < SHIPMENTS; i++) {
+      statistics.onSaved(shipment(i, random.nextDouble() * 60));
+    }
+  }
+
+  @Benchmark
+  public List<WeightStats> readOneCity() {
+    return statistics.stats("recipient", "City " + random.nextInt(CITIES));
+  }
+
+  @Benchmark
+  public List<WeightStats> readAllCities() {
+    return statistics.stats("recipient", null);
+  }
+
+  @Benchmark
+  public List<WeightStats> writeThenRead() {
+    int i = random.nextInt(SHIPMENTS);
+    statistics.onSaved(shipment(i, random.nextDouble() * 60));
+    return statistics.stats("recipient", "City " + i % CITIES);
+  }
+
+  private static Shipment shipment(int i, double weight) {
+    return Shipment.builder()
+        .shipmentId("stats-" + i)
+        .weight(weight)
+        .recipient(participant("City " + i % CITIES))
+        .sender(participant("City " + (i * 7) % CITIES))
+        .build();
+  }
+
+  private static Participant participant(String city) {
+    return Participant.builder()
+        .name("Participant")
+        .address(Address.builder().city(city).build())
+        .build();
+  }
+}
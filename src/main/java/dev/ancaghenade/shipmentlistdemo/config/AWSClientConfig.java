@@ -1,9 +1,12 @@
 package dev.ancaghenade.shipmentlistdemo.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 
 public abstract class AWSClientConfig {
 
@@ -16,8 +19,22 @@ public abstract class AWSClientConfig {
   @Value("${aws.region}")
   protected String awsRegion;
 
+  @Autowired
+  protected MeterRegistry meterRegistry;
+
+  @Autowired
+  protected SdkHttpClients sdkHttpClients;
+
   protected AwsCredentialsProvider amazonAWSCredentialsProvider() {
     return StaticCredentialsProvider.create(AwsBasicCredentials.create(awsAccessKey, awsSecretKey));
   }
 
+  // the timeouts of the service under shipment.http, and every client reports its API call
+  // latencies to the meter registry
+  protected ClientOverrideConfiguration clientOverrideConfiguration(String service) {
+    return sdkHttpClients.overrideConfiguration(service)
+        .addMetricPublisher(new MicrometerMetricPublisher(meterRegistry))
+        .build();
+  }
+
 }
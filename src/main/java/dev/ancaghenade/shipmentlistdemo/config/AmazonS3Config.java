@@ -19,6 +19,8 @@ public class AmazonS3Config extends AWSClientConfig {
     return S3Client.builder()
         .region(Region.of(awsRegion))
         .credentialsProvider(amazonAWSCredentialsProvider())
+        .httpClientBuilder(sdkHttpClients.syncClient("s3"))
+        .overrideConfiguration(clientOverrideConfiguration("s3"))
         .endpointOverride(URI.create(awsS3EndPoint))
         .forcePathStyle(true)
         .build();
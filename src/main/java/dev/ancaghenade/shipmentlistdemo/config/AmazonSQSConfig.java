@@ -1,9 +1,12 @@
 package dev.ancaghenade.shipmentlistdemo.config;
 
+import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
 import java.net.URI;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 
@@ -13,13 +16,57 @@ public class AmazonSQSConfig extends AWSClientConfig {
   @Value("${aws.sqs.endpoint}")
   private String awsSqsEndPoint;
 
+  @Value("${shipment.sqs.max-concurrent-messages:10}")
+  private int maxConcurrentMessages;
+
+  @Value("${shipment.sqs.max-messages-per-poll:10}")
+  private int maxMessagesPerPoll;
+
+  // long polling, how long a receive waits for messages before returning empty
+  @Value("${shipment.sqs.poll-timeout:10s}")
+  private Duration pollTimeout;
+
+  @Value("${shipment.sqs.visibility-timeout:30s}")
+  private Duration visibilityTimeout;
+
+  @Value("${shipment.sqs.max-visibility-extension:10m}")
+  private Duration maxVisibilityExtension;
+
   @Bean
   public SqsAsyncClient sqsClient() {
     return SqsAsyncClient.builder()
         .endpointOverride(URI.create(awsSqsEndPoint))
         .credentialsProvider(amazonAWSCredentialsProvider())
+        .httpClientBuilder(sdkHttpClients.asyncClient("sqs"))
+        .overrideConfiguration(clientOverrideConfiguration("sqs"))
         .region(Region.of(awsRegion))
         .build();
   }
 
+  @Bean
+  public VisibilityExtendingInterceptor visibilityExtendingInterceptor() {
+    return new VisibilityExtendingInterceptor(visibilityTimeout, maxVisibilityExtension);
+  }
+
+  // replaces the auto-configured factory used by every @SqsListener
+  @Bean
+  public SqsMessageListenerContainerFactory<Object> defaultSqsListenerContainerFactory(
+      SqsAsyncClient sqsClient, VisibilityExtendingInterceptor visibilityExtendingInterceptor,
+      TaskExecutors taskExecutors) {
+    return SqsMessageListenerContainerFactory.builder()
+        .sqsAsyncClient(sqsClient)
+        .configure(options -> {
+          options.maxConcurrentMessages(maxConcurrentMessages)
+              .maxMessagesPerPoll(maxMessagesPerPoll)
+              .pollTimeout(pollTimeout)
+              .messageVisibility(visibilityTimeout);
+          if (taskExecutors.isVirtualThreads()) {
+            // listener invocations block on DynamoDB, one virtual thread per message in flight
+            options.componentsTaskExecutor(new VirtualThreadTaskExecutor("sqs-listener-"));
+          }
+        })
+        .messageInterceptor(visibilityExtendingInterceptor)
+        .build();
+  }
+
 }
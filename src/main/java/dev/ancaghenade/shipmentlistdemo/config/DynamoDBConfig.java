@@ -1,6 +1,7 @@
 package dev.ancaghenade.shipmentlistdemo.config;
 
 import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentTableSchemas;
 import java.net.URI;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -10,6 +11,7 @@ import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
 
 @Configuration
 public class DynamoDBConfig extends AWSClientConfig {
@@ -17,22 +19,55 @@ public class DynamoDBConfig extends AWSClientConfig {
   @Value("${aws.dynamodb.endpoint}")
   private String awsDynamoDBEndPoint;
 
+  @Value("${shipment.table-schema:static}")
+  private String tableSchema;
+
+  // also used directly for update expressions the enhanced client cannot express
   @Bean
-  public DynamoDbEnhancedClient dynamoDbClient() {
-    DynamoDbClient dynamoDbClient = DynamoDbClient.builder()
+  public DynamoDbClient dynamoDbLowLevelClient() {
+    return DynamoDbClient.builder()
         .region(Region.of(awsRegion))
         .credentialsProvider(amazonAWSCredentialsProvider())
+        .httpClientBuilder(sdkHttpClients.syncClient("dynamodb"))
+        .overrideConfiguration(clientOverrideConfiguration("dynamodb"))
         .endpointOverride(URI.create(awsDynamoDBEndPoint))
         .build();
+  }
 
+  @Bean
+  public DynamoDbEnhancedClient dynamoDbClient(DynamoDbClient dynamoDbLowLevelClient) {
     // using the enhanced client for mapping classes to tables
     return DynamoDbEnhancedClient.builder()
-        .dynamoDbClient(dynamoDbClient)
+        .dynamoDbClient(dynamoDbLowLevelClient)
         .build();
   }
+
+  // shared by the sync and the async table
+  @Bean
+  public TableSchema<Shipment> shipmentTableSchema() {
+    return switch (tableSchema) {
+      case "static" -> ShipmentTableSchemas.SHIPMENT;
+      case "bean" -> TableSchema.fromBean(Shipment.class);
+      default -> throw new IllegalArgumentException(
+          "shipment.table-schema must be static or bean, was " + tableSchema);
+    };
+  }
+
+  @Bean
+  public DynamoDbTable shipmentTable(DynamoDbEnhancedClient dynamoDbClient,
+      TableSchema<Shipment> shipmentTableSchema) {
+    return dynamoDbClient.table("shipment", shipmentTableSchema);
+  }
+
   @Bean
-  public DynamoDbTable shipmentTable(DynamoDbEnhancedClient dynamoDbClient) {
-    return dynamoDbClient.table("shipment", TableSchema.fromBean(Shipment.class));
+  public DynamoDbStreamsClient dynamoDbStreamsClient() {
+    return DynamoDbStreamsClient.builder()
+        .region(Region.of(awsRegion))
+        .credentialsProvider(amazonAWSCredentialsProvider())
+        .httpClientBuilder(sdkHttpClients.syncClient("dynamodb-streams"))
+        .overrideConfiguration(clientOverrideConfiguration("dynamodb-streams"))
+        .endpointOverride(URI.create(awsDynamoDBEndPoint))
+        .build();
   }
 
 
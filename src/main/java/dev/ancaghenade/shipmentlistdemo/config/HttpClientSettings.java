@@ -0,0 +1,37 @@
+package dev.ancaghenade.shipmentlistdemo.config;
+
+import java.time.Duration;
+import lombok.Data;
+
+/**
+ * HTTP transport and timeouts of one AWS service client, bound from shipment.http.default and then
+ * shipment.http.&lt;service&gt;. Settings left unset keep the SDK defaults of the chosen client.
+ */
+@Data
+public class HttpClientSettings {
+
+  public enum Client {
+    // sync only, the SDK default for sync clients
+    APACHE,
+    // sync only, the JDK's HttpURLConnection; no pool settings, the JDK keeps connections alive
+    URL_CONNECTION,
+    // async only, the SDK default for async clients
+    NETTY,
+    // sync and async, the native AWS Common Runtime client
+    CRT
+  }
+
+  private Client client;
+  private Integer maxConnections;
+  // how long a pooled connection may be reused; for CRT, how long it may stay idle
+  private Duration connectionTtl;
+  private Boolean tcpKeepAlive;
+  private Duration connectionTimeout;
+  // longest wait for data on an open connection, read and write timeout for Netty
+  private Duration socketTimeout;
+  // longest wait for a free pooled connection, before failing instead of queueing forever
+  private Duration connectionAcquisitionTimeout;
+  // whole call including retries, and each single attempt
+  private Duration apiCallTimeout;
+  private Duration apiCallAttemptTimeout;
+}
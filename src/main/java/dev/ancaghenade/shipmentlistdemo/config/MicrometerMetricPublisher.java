@@ -0,0 +1,63 @@
+package dev.ancaghenade.shipmentlistdemo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+/**
+ * Records the metrics the SDK collects for every API call as Micrometer meters: a timer per
+ * service, operation and outcome, including retries and backoff, and a counter of the retries.
+ * Shared by all clients, sync and async; the SDK publishes from the thread that completed the
+ * call.
+ */
+public class MicrometerMetricPublisher implements MetricPublisher {
+
+  private final MeterRegistry registry;
+
+  public MicrometerMetricPublisher(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void publish(MetricCollection metrics) {
+    String service = first(metrics, CoreMetric.SERVICE_ID, "unknown");
+    String operation = first(metrics, CoreMetric.OPERATION_NAME, "unknown");
+    boolean successful = first(metrics, CoreMetric.API_CALL_SUCCESSFUL, false);
+    Tags tags = Tags.of("service", service, "operation", operation);
+
+    Duration duration = first(metrics, CoreMetric.API_CALL_DURATION, null);
+    if (duration != null) {
+      Timer.builder("aws.sdk.api.call")
+          .description("AWS API call latency, from the request to the response headers")
+          .tags(tags)
+          .tag("outcome", successful ? "success" : "failure")
+          .publishPercentileHistogram()
+          .register(registry)
+          .record(duration);
+    }
+    int retries = first(metrics, CoreMetric.RETRY_COUNT, 0);
+    if (retries > 0) {
+      Counter.builder("aws.sdk.api.retries")
+          .tags(tags)
+          .register(registry)
+          .increment(retries);
+    }
+  }
+
+  @Override
+  public void close() {
+    // the meters belong to the registry
+  }
+
+  private static <T> T first(MetricCollection metrics, SdkMetric<T> metric, T fallback) {
+    List<T> values = metrics.metricValues(metric);
+    return values.isEmpty() ? fallback : values.get(0);
+  }
+}
@@ -0,0 +1,121 @@
+package dev.ancaghenade.shipmentlistdemo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ancaghenade.shipmentlistdemo.controller.ReactiveShipmentController;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import java.net.URI;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+
+/**
+ * Async SDK clients and a Netty server for the reactive shipment API. The server runs next to the
+ * servlet one on its own port and event loop, so both stacks can be compared under the same data.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shipment.reactive.enabled", havingValue = "true")
+public class ReactiveApiConfig extends AWSClientConfig {
+
+  @Value("${aws.s3.endpoint}")
+  private String awsS3EndPoint;
+
+  @Value("${aws.dynamodb.endpoint}")
+  private String awsDynamoDBEndPoint;
+
+  @Value("${shipment.reactive.port:8082}")
+  private int port;
+
+  @Value("${shipment.transfer.multipart-threshold:16MB}")
+  private DataSize multipartThreshold;
+
+  @Value("${shipment.transfer.part-size:8MB}")
+  private DataSize partSize;
+
+  @Bean
+  public S3AsyncClient s3AsyncClient() {
+    return S3AsyncClient.builder()
+        .region(Region.of(awsRegion))
+        .credentialsProvider(amazonAWSCredentialsProvider())
+        .httpClientBuilder(sdkHttpClients.asyncClient("s3-async"))
+        .overrideConfiguration(clientOverrideConfiguration("s3-async"))
+        .endpointOverride(URI.create(awsS3EndPoint))
+        .forcePathStyle(true)
+        // uploads of unknown length, like streamed form parts, go to S3 part by part
+        .multipartEnabled(true)
+        .multipartConfiguration(MultipartConfiguration.builder()
+            .thresholdInBytes(multipartThreshold.toBytes())
+            .minimumPartSizeInBytes(partSize.toBytes())
+            .build())
+        .build();
+  }
+
+  @Bean
+  public DynamoDbAsyncClient dynamoDbAsyncClient() {
+    return DynamoDbAsyncClient.builder()
+        .region(Region.of(awsRegion))
+        .credentialsProvider(amazonAWSCredentialsProvider())
+        .httpClientBuilder(sdkHttpClients.asyncClient("dynamodb-async"))
+        .overrideConfiguration(clientOverrideConfiguration("dynamodb-async"))
+        .endpointOverride(URI.create(awsDynamoDBEndPoint))
+        .build();
+  }
+
+  @Bean
+  public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(
+      DynamoDbAsyncClient dynamoDbAsyncClient) {
+    return DynamoDbEnhancedAsyncClient.builder()
+        .dynamoDbClient(dynamoDbAsyncClient)
+        .build();
+  }
+
+  @Bean
+  public DynamoDbAsyncTable<Shipment> shipmentAsyncTable(
+      DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient,
+      TableSchema<Shipment> shipmentTableSchema) {
+    return dynamoDbEnhancedAsyncClient.table("shipment", shipmentTableSchema);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  public WebServer reactiveApiServer(ReactiveShipmentController reactiveShipmentController,
+      ObjectMapper objectMapper) {
+    // same JSON settings as the servlet stack
+    HandlerStrategies strategies = HandlerStrategies.builder()
+        .codecs(codecs -> {
+          codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+          codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+        })
+        .build();
+
+    CorsConfiguration cors = new CorsConfiguration();
+    cors.setAllowedOrigins(List.of("http://localhost:3000"));
+    cors.setAllowedMethods(List.of("GET", "POST", "DELETE"));
+    cors.applyPermitDefaultValues();
+    UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+    corsSource.registerCorsConfiguration("/**", cors);
+
+    return new NettyReactiveWebServerFactory(port).getWebServer(WebHttpHandlerBuilder
+        .webHandler(RouterFunctions.toWebHandler(reactiveShipmentController.routes(), strategies))
+        .filter(new CorsWebFilter(corsSource))
+        .build());
+  }
+}
@@ -0,0 +1,153 @@
+package dev.ancaghenade.shipmentlistdemo.config;
+
+import static java.lang.String.format;
+
+import dev.ancaghenade.shipmentlistdemo.config.HttpClientSettings.Client;
+import java.time.Duration;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.crt.TcpKeepAliveConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+
+/**
+ * Builds the HTTP client and the timeouts of each AWS service client from
+ * {@link HttpClientSettings}. The builders are handed to the service client builders, so every
+ * service client owns its connection pool and closes it with itself.
+ */
+@Component
+public class SdkHttpClients {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SdkHttpClients.class);
+  private static final String PREFIX = "shipment.http.";
+  // CRT only switches keep-alive probes on with an interval, the other clients use the OS settings
+  private static final Duration CRT_KEEP_ALIVE_INTERVAL = Duration.ofSeconds(30);
+  private static final Duration CRT_KEEP_ALIVE_TIMEOUT = Duration.ofSeconds(5);
+
+  private final Environment environment;
+
+  @Autowired
+  public SdkHttpClients(Environment environment) {
+    this.environment = environment;
+  }
+
+  /**
+   * The default settings overridden by the ones of the service.
+   */
+  public HttpClientSettings settings(String service) {
+    HttpClientSettings settings = new HttpClientSettings();
+    Binder binder = Binder.get(environment);
+    binder.bind(PREFIX + "default", Bindable.ofInstance(settings));
+    binder.bind(PREFIX + service, Bindable.ofInstance(settings));
+    return settings;
+  }
+
+  public SdkHttpClient.Builder<?> syncClient(String service) {
+    HttpClientSettings settings = settings(service);
+    Client client = settings.getClient() == null ? Client.APACHE : settings.getClient();
+    LOGGER.info("{} uses the {} HTTP client", service, client);
+    return switch (client) {
+      case APACHE -> {
+        ApacheHttpClient.Builder builder = ApacheHttpClient.builder();
+        ifSet(settings.getMaxConnections(), builder::maxConnections);
+        ifSet(settings.getConnectionTtl(), builder::connectionTimeToLive);
+        ifSet(settings.getTcpKeepAlive(), builder::tcpKeepAlive);
+        ifSet(settings.getConnectionTimeout(), builder::connectionTimeout);
+        ifSet(settings.getSocketTimeout(), builder::socketTimeout);
+        ifSet(settings.getConnectionAcquisitionTimeout(), builder::connectionAcquisitionTimeout);
+        yield builder;
+      }
+      case URL_CONNECTION -> {
+        UrlConnectionHttpClient.Builder builder = UrlConnectionHttpClient.builder();
+        ifSet(settings.getConnectionTimeout(), builder::connectionTimeout);
+        ifSet(settings.getSocketTimeout(), builder::socketTimeout);
+        yield builder;
+      }
+      case CRT -> {
+        AwsCrtHttpClient.Builder builder = AwsCrtHttpClient.builder();
+        ifSet(settings.getMaxConnections(), builder::maxConcurrency);
+        ifSet(settings.getConnectionTtl(), builder::connectionMaxIdleTime);
+        ifSet(settings.getConnectionTimeout(), builder::connectionTimeout);
+        ifSet(settings.getConnectionAcquisitionTimeout(), builder::connectionAcquisitionTimeout);
+        if (Boolean.TRUE.equals(settings.getTcpKeepAlive())) {
+          builder.tcpKeepAliveConfiguration(crtKeepAlive());
+        }
+        yield builder;
+      }
+      case NETTY -> throw new IllegalArgumentException(unsupported(service, client));
+    };
+  }
+
+  public SdkAsyncHttpClient.Builder<?> asyncClient(String service) {
+    HttpClientSettings settings = settings(service);
+    Client client = settings.getClient() == null ? Client.NETTY : settings.getClient();
+    LOGGER.info("{} uses the {} HTTP client", service, client);
+    return switch (client) {
+      case NETTY -> {
+        NettyNioAsyncHttpClient.Builder builder = NettyNioAsyncHttpClient.builder();
+        ifSet(settings.getMaxConnections(), builder::maxConcurrency);
+        ifSet(settings.getConnectionTtl(), builder::connectionTimeToLive);
+        ifSet(settings.getTcpKeepAlive(), builder::tcpKeepAlive);
+        ifSet(settings.getConnectionTimeout(), builder::connectionTimeout);
+        ifSet(settings.getSocketTimeout(), builder::readTimeout);
+        ifSet(settings.getSocketTimeout(), builder::writeTimeout);
+        ifSet(settings.getConnectionAcquisitionTimeout(), builder::connectionAcquisitionTimeout);
+        yield builder;
+      }
+      case CRT -> {
+        AwsCrtAsyncHttpClient.Builder builder = AwsCrtAsyncHttpClient.builder();
+        ifSet(settings.getMaxConnections(), builder::maxConcurrency);
+        ifSet(settings.getConnectionTtl(), builder::connectionMaxIdleTime);
+        ifSet(settings.getConnectionTimeout(), builder::connectionTimeout);
+        ifSet(settings.getConnectionAcquisitionTimeout(), builder::connectionAcquisitionTimeout);
+        if (Boolean.TRUE.equals(settings.getTcpKeepAlive())) {
+          builder.tcpKeepAliveConfiguration(crtKeepAlive());
+        }
+        yield builder;
+      }
+      case APACHE, URL_CONNECTION ->
+          throw new IllegalArgumentException(unsupported(service, client));
+    };
+  }
+
+  /**
+   * The API call and attempt timeouts of the service, to add the remaining overrides to.
+   */
+  public ClientOverrideConfiguration.Builder overrideConfiguration(String service) {
+    HttpClientSettings settings = settings(service);
+    ClientOverrideConfiguration.Builder builder = ClientOverrideConfiguration.builder();
+    ifSet(settings.getApiCallTimeout(), builder::apiCallTimeout);
+    ifSet(settings.getApiCallAttemptTimeout(), builder::apiCallAttemptTimeout);
+    return builder;
+  }
+
+  private static TcpKeepAliveConfiguration crtKeepAlive() {
+    return TcpKeepAliveConfiguration.builder()
+        .keepAliveInterval(CRT_KEEP_ALIVE_INTERVAL)
+        .keepAliveTimeout(CRT_KEEP_ALIVE_TIMEOUT)
+        .build();
+  }
+
+  private static String unsupported(String service, Client client) {
+    return format("The %s HTTP client cannot be used for %s, see %s%s.client", client,
+        service, PREFIX, service);
+  }
+
+  private static <T> void ifSet(T value, Consumer<T> setter) {
+    if (value != null) {
+      setter.accept(value);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package dev.ancaghenade.shipmentlistdemo.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the executors that run blocking S3, DynamoDB and SSE work. With
+ * spring.threads.virtual.enabled on JDK 21 or later every task gets its own virtual thread, the
+ * same switch Spring Boot uses for Tomcat and the MVC async executor. Otherwise the executors are
+ * fixed pools of platform threads of the requested size.
+ */
+@Component
+public class TaskExecutors {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TaskExecutors.class);
+
+  private final boolean virtualThreads;
+
+  @Autowired
+  public TaskExecutors(Environment environment) {
+    this(Threading.VIRTUAL.isActive(environment));
+    if (!virtualThreads
+        && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+      LOGGER.warn("Virtual threads need JDK 21 or later, running on platform threads instead");
+    }
+  }
+
+  public TaskExecutors(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public ExecutorService newExecutor(String threadNamePrefix, int platformThreads) {
+    if (virtualThreads) {
+      // a new virtual thread per task that ends with it, like Executors.newThreadPerTaskExecutor
+      // which cannot be referenced while the code base compiles for Java 17
+      return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS,
+          new SynchronousQueue<>(),
+          new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+    }
+    return Executors.newFixedThreadPool(platformThreads,
+        new CustomizableThreadFactory(threadNamePrefix));
+  }
+}
@@ -0,0 +1,105 @@
+package dev.ancaghenade.shipmentlistdemo.config;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.Visibility;
+import io.awspring.cloud.sqs.listener.interceptor.MessageInterceptor;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Keeps messages invisible while their handler is still running. Before the visibility timeout
+ * runs out it is pushed forward again, until the handler finishes or the maximum extension is
+ * reached, after which the message is left to be redelivered.
+ */
+public class VisibilityExtendingInterceptor implements MessageInterceptor<Object> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(VisibilityExtendingInterceptor.class);
+
+  private final int visibilitySeconds;
+  private final long extendEveryMillis;
+  private final long maxExtensionMillis;
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+      new CustomizableThreadFactory("sqs-visibility-"));
+  private final Map<String, ScheduledFuture<?>> extensions = new ConcurrentHashMap<>();
+
+  public VisibilityExtendingInterceptor(Duration visibilityTimeout, Duration maxExtension) {
+    // SQS sets visibility in whole seconds, anything shorter could not be extended in time
+    if (visibilityTimeout.compareTo(Duration.ofSeconds(1)) < 0) {
+      throw new IllegalArgumentException(
+          "Visibility timeout must be at least 1s, was " + visibilityTimeout);
+    }
+    this.visibilitySeconds = Math.toIntExact(visibilityTimeout.toSeconds());
+    // extend once two thirds of the timeout are used up, leaving time for the request itself
+    this.extendEveryMillis = visibilityTimeout.toMillis() * 2 / 3;
+    this.maxExtensionMillis = maxExtension.toMillis();
+  }
+
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  @Override
+  public Message<Object> intercept(Message<Object> message) {
+    startExtending(message);
+    return message;
+  }
+
+  @Override
+  public Collection<Message<Object>> intercept(Collection<Message<Object>> messages) {
+    messages.forEach(this::startExtending);
+    return messages;
+  }
+
+  @Override
+  public void afterProcessing(Message<Object> message, Throwable t) {
+    stopExtending(message);
+  }
+
+  @Override
+  public void afterProcessing(Collection<Message<Object>> messages, Throwable t) {
+    messages.forEach(this::stopExtending);
+  }
+
+  private void startExtending(Message<Object> message) {
+    Visibility visibility = message.getHeaders()
+        .get(SqsHeaders.SQS_VISIBILITY_TIMEOUT_HEADER, Visibility.class);
+    if (visibility == null) {
+      return;
+    }
+    String messageId = messageId(message);
+    AtomicLong extendedMillis = new AtomicLong();
+    extensions.put(messageId, scheduler.scheduleAtFixedRate(() -> {
+      if (extendedMillis.addAndGet(extendEveryMillis) > maxExtensionMillis) {
+        LOGGER.warn("Message {} exceeded the maximum visibility extension", messageId);
+        stopExtending(message);
+        return;
+      }
+      visibility.changeToAsync(visibilitySeconds).exceptionally(e -> {
+        LOGGER.warn("Failed to extend visibility of message {}: {}", messageId, e.getMessage());
+        return null;
+      });
+    }, extendEveryMillis, extendEveryMillis, TimeUnit.MILLISECONDS));
+  }
+
+  private void stopExtending(Message<Object> message) {
+    ScheduledFuture<?> extension = extensions.remove(messageId(message));
+    if (extension != null) {
+      extension.cancel(false);
+    }
+  }
+
+  private static String messageId(Message<?> message) {
+    return String.valueOf(message.getHeaders().get(SqsHeaders.SQS_MESSAGE_ID_HEADER));
+  }
+}
@@ -1,11 +1,18 @@
 package dev.ancaghenade.shipmentlistdemo.controller;
 
 import dev.ancaghenade.shipmentlistdemo.service.ShipmentService;
+import dev.ancaghenade.shipmentlistdemo.service.SseBroadcaster;
 import io.awspring.cloud.sqs.annotation.SqsListener;
-
-import java.io.IOException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -22,77 +29,122 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 public class MessageReceiver {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MessageReceiver.class);
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    /**
+     * A picture notification: the S3 key of the new image, the shipment it belongs to and the SNS
+     * publish time, if given.
+     */
+    public record Notification(String shipmentId, String imageLink, Instant timestamp) {
+
+    }
 
     private final ShipmentService shipmentService;
+    private final SseBroadcaster sseBroadcaster;
+    // from the SNS publish time to the start of processing, queueing and polling included
+    private final Timer messageLag;
+    private final Timer batchProcessing;
+    private final Counter droppedMessages;
 
     @Autowired
-    public MessageReceiver(ShipmentService shipmentService) {
+    public MessageReceiver(ShipmentService shipmentService, SseBroadcaster sseBroadcaster,
+            MeterRegistry meterRegistry) {
         this.shipmentService = shipmentService;
+        this.sseBroadcaster = sseBroadcaster;
+        this.messageLag = Timer.builder("sqs.message.lag")
+                .description("Time from the SNS notification to its processing")
+                .tag("queue", "update_shipment_picture_queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchProcessing = Timer.builder("sqs.batch.processing")
+                .tag("queue", "update_shipment_picture_queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.droppedMessages = Counter.builder("sqs.messages.dropped")
+                .description("Malformed notifications acknowledged without processing")
+                .tag("queue", "update_shipment_picture_queue")
+                .register(meterRegistry);
     }
 
+    /**
+     * Receives up to shipment.sqs.max-messages-per-poll notifications at once. Several uploads for
+     * the same shipment collapse into the most recent one, the updates are written concurrently
+     * and the whole batch is acknowledged once this method returns.
+     */
     @SqsListener(value = "update_shipment_picture_queue")
-    public void loadMessagesFromQueue(String notification) {
-        LOGGER.info("Message from queue {} ", notification);
-
-        var obj = new JSONObject(notification);
-        var message = obj.getString("Message");
-        var shipmentId = message.split("/")[0];
-
-        shipmentService.updateImageLink(shipmentId, message);
-
-        emitters.forEach(emitter -> {
-            try {
-                emitter.send(shipmentId);
-                LOGGER.info("SSE event sent to emitter: {}", emitter);
-                sleep(emitter);
-            } catch (IOException e) {
-                LOGGER.error("Error sending SSE event: {}", e.getMessage(), e);
-                emitter.completeWithError(e);
-            }
-            emitter.complete();
-        });
+    public void loadMessagesFromQueue(List<String> notifications) {
+        LOGGER.info("{} messages from queue", notifications.size());
+        batchProcessing.record(() -> process(notifications));
     }
 
-    @GetMapping(value = "/push-endpoint")
-    @CrossOrigin(origins = "http://localhost:3000")
-    public SseEmitter pushData() {
-
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+    private void process(List<String> notifications) {
+        Instant received = Instant.now();
+        List<Notification> parsed = parse(notifications);
+        droppedMessages.increment(notifications.size() - parsed.size());
+        parsed.stream()
+                .filter(notification -> notification.timestamp() != null)
+                .forEach(notification -> messageLag.record(
+                        Duration.between(notification.timestamp(), received)));
+        Map<String, String> imageLinks = coalesce(parsed);
+        if (imageLinks.isEmpty()) {
+            return;
+        }
 
-        emitter.onCompletion(() -> {
-            synchronized (emitters) {
-                emitters.remove(emitter);
-            }
-        });
+        shipmentService.updateImageLinks(imageLinks);
 
-        emitter.onTimeout(() -> {
-            synchronized (emitters) {
-                emitters.remove(emitter);
-            }
-            emitter.complete();
-            LOGGER.info("SseEmitter is timed out");
-        });
+        // delivery happens on the broadcaster's own threads, the listener moves on right away
+        imageLinks.keySet().forEach(sseBroadcaster::broadcast);
+    }
 
-        emitter.onError(e -> {
-            synchronized (emitters) {
-                emitters.remove(emitter);
+    /**
+     * Reads the SNS notifications of a batch. One that is not valid JSON, has no message or an
+     * unparsable timestamp is logged and dropped: redelivering it cannot fix it, and failing for it
+     * would redeliver the whole batch forever.
+     */
+    public static List<Notification> parse(List<String> notifications) {
+        List<Notification> parsed = new ArrayList<>(notifications.size());
+        for (String notification : notifications) {
+            try {
+                var obj = new JSONObject(notification);
+                var imageLink = obj.getString("Message");
+                var shipmentId = imageLink.split("/")[0];
+                if (shipmentId.isBlank()) {
+                    throw new IllegalArgumentException("Message has no shipment id");
+                }
+                var timestamp = obj.optString("Timestamp", null);
+                parsed.add(new Notification(shipmentId, imageLink,
+                        timestamp == null ? null : Instant.parse(timestamp)));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Dropping malformed notification {}: {}", notification, e.getMessage());
             }
-        });
-
-        synchronized (emitters) {
-            emitters.add(emitter);
         }
+        return parsed;
+    }
 
-        return emitter;
+    /**
+     * The image link of the newest notification per shipment, in the order the shipments first
+     * appear in the batch.
+     */
+    public static Map<String, String> coalesce(List<Notification> notifications) {
+        Map<String, Notification> latest = new LinkedHashMap<>();
+        notifications.forEach(notification ->
+                latest.merge(notification.shipmentId(), notification, MessageReceiver::newer));
+        Map<String, String> imageLinks = new LinkedHashMap<>();
+        latest.forEach((shipmentId, notification) ->
+                imageLinks.put(shipmentId, notification.imageLink()));
+        return imageLinks;
     }
 
-    private void sleep(SseEmitter sseEmitter) {
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-            sseEmitter.completeWithError(e);
+    // SNS timestamps are ISO-8601, messages without one keep their order in the batch
+    private static Notification newer(Notification current, Notification candidate) {
+        if (current.timestamp() == null || candidate.timestamp() == null) {
+            return candidate;
         }
+        return candidate.timestamp().isBefore(current.timestamp()) ? current : candidate;
+    }
+
+    @GetMapping(value = "/push-endpoint")
+    @CrossOrigin(origins = "http://localhost:3000")
+    public SseEmitter pushData() {
+        return sseBroadcaster.subscribe(new SseEmitter(Long.MAX_VALUE));
     }
 }
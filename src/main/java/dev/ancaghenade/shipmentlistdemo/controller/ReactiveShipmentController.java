@@ -0,0 +1,151 @@
+package dev.ancaghenade.shipmentlistdemo.controller;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentImage;
+import dev.ancaghenade.shipmentlistdemo.service.ReactiveShipmentService;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ConcurrentModificationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The shipment API on the reactive stack, served on its own port next to
+ * {@link ShipmentController}. Handlers never block, request and response bodies are passed
+ * through as publishers so a slow client slows down its own S3 transfer and nothing else.
+ */
+@Component
+@ConditionalOnProperty(name = "shipment.reactive.enabled", havingValue = "true")
+public class ReactiveShipmentController {
+
+  private final ReactiveShipmentService shipmentService;
+
+  @Autowired
+  public ReactiveShipmentController(ReactiveShipmentService shipmentService) {
+    this.shipmentService = shipmentService;
+  }
+
+  public RouterFunction<ServerResponse> routes() {
+    return RouterFunctions.route()
+        .path("api/shipment", builder -> builder
+            .GET("", this::getAllShipments)
+            .GET("/{shipmentId}/image/download", this::downloadShipmentImage)
+            .POST("/{shipmentId}/image/upload", contentType(MediaType.MULTIPART_FORM_DATA),
+                this::uploadShipmentImage)
+            .POST("", contentType(MediaType.APPLICATION_JSON), this::saveUpdateShipment)
+            .DELETE("/{shipmentId}", this::deleteShipment))
+        .onError(IllegalArgumentException.class,
+            (e, request) -> ServerResponse.badRequest().bodyValue(e.getMessage()))
+        .onError(ConcurrentModificationException.class,
+            (e, request) -> ServerResponse.status(HttpStatus.PRECONDITION_FAILED)
+                .bodyValue(e.getMessage()))
+        .build();
+  }
+
+  public Mono<ServerResponse> getAllShipments(ServerRequest request) {
+    // newline delimited JSON lets clients handle each shipment as soon as its page is read
+    MediaType contentType = request.headers().accept().stream()
+        .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype)
+        ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+    return ServerResponse.ok()
+        .contentType(contentType)
+        .body(shipmentService.getAllShipments(), Shipment.class);
+  }
+
+  public Mono<ServerResponse> downloadShipmentImage(ServerRequest request) {
+    HttpHeaders headers = request.headers().asHttpHeaders();
+    long ifModifiedSince = headers.getIfModifiedSince();
+    return shipmentService.downloadShipmentImage(request.pathVariable("shipmentId"),
+            headers.getAccept(),
+            headers.getFirst(HttpHeaders.RANGE),
+            headers.getFirst(HttpHeaders.IF_NONE_MATCH),
+            ifModifiedSince < 0 ? null : Instant.ofEpochMilli(ifModifiedSince))
+        .flatMap(this::toResponse);
+  }
+
+  public Mono<ServerResponse> uploadShipmentImage(ServerRequest request) {
+    String shipmentId = request.pathVariable("shipmentId");
+    // part events are streamed as they are parsed, the file is never held in memory or on disk
+    return request.body(BodyExtractors.toPartEvents())
+        .windowUntil(PartEvent::isLast)
+        .concatMap(partEvents -> partEvents.switchOnFirst((first, events) -> {
+          if (first.get() instanceof FilePartEvent file && file.name().equals("file")) {
+            MediaType contentType = file.headers().getContentType();
+            return shipmentService.uploadShipmentImage(shipmentId, file.filename(),
+                contentType == null ? null : contentType.toString(),
+                events.map(event -> toByteBuffer(event.content())));
+          }
+          // other form fields are not used
+          return events.doOnNext(event -> DataBufferUtils.release(event.content())).then();
+        }))
+        .then(ServerResponse.ok().build());
+  }
+
+  public Mono<ServerResponse> saveUpdateShipment(ServerRequest request) {
+    return request.bodyToMono(Shipment.class)
+        .flatMap(shipmentService::saveShipment)
+        .then(ServerResponse.ok().build());
+  }
+
+  public Mono<ServerResponse> deleteShipment(ServerRequest request) {
+    return shipmentService.deleteShipment(request.pathVariable("shipmentId"))
+        .flatMap(message -> ServerResponse.ok().bodyValue(message));
+  }
+
+  private Mono<ServerResponse> toResponse(ShipmentImage image) {
+    ServerResponse.BodyBuilder response = ServerResponse.status(image.getStatus())
+        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+        .header(HttpHeaders.CACHE_CONTROL, image.getCacheControl());
+    if (image.getETag() != null) {
+      response.eTag(image.getETag());
+    }
+    if (image.getLastModified() != null) {
+      response.lastModified(image.getLastModified());
+    }
+    if (image.getContentRange() != null) {
+      response.header(HttpHeaders.CONTENT_RANGE, image.getContentRange());
+    }
+    if (image.getContentPublisher() == null) {
+      return response.build();
+    }
+    if (image.getContentLength() != null) {
+      response.contentLength(image.getContentLength());
+    }
+    Flux<DataBuffer> content = Flux.from(image.getContentPublisher())
+        .map(DefaultDataBufferFactory.sharedInstance::wrap);
+    return response
+        .contentType(image.getContentType() == null ? MediaType.IMAGE_JPEG
+            : MediaType.parseMediaType(image.getContentType()))
+        .body(BodyInserters.fromDataBuffers(content));
+  }
+
+  private static ByteBuffer toByteBuffer(DataBuffer dataBuffer) {
+    // the SDK may hold on to the bytes after the server has recycled its buffer
+    try {
+      ByteBuffer copy = ByteBuffer.allocate(dataBuffer.readableByteCount());
+      dataBuffer.toByteBuffer(copy);
+      return copy;
+    } finally {
+      DataBufferUtils.release(dataBuffer);
+    }
+  }
+}
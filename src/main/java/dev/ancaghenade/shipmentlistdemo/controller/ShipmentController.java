@@ -1,21 +1,41 @@
 package dev.ancaghenade.shipmentlistdemo.controller;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
+import dev.ancaghenade.shipmentlistdemo.entity.BulkIngestResult;
 import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentImage;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentPage;
+import dev.ancaghenade.shipmentlistdemo.entity.Suggestion;
+import dev.ancaghenade.shipmentlistdemo.entity.WeightStats;
+import dev.ancaghenade.shipmentlistdemo.service.BulkIngestService;
+import dev.ancaghenade.shipmentlistdemo.service.ShipmentExportService;
 import dev.ancaghenade.shipmentlistdemo.service.ShipmentService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("api/shipment")
@@ -23,10 +43,15 @@ import org.springframework.web.multipart.MultipartFile;
 public class ShipmentController {
 
   private final ShipmentService shipmentService;
+  private final BulkIngestService bulkIngestService;
+  private final ShipmentExportService shipmentExportService;
 
   @Autowired
-  public ShipmentController(ShipmentService shipmentService) {
+  public ShipmentController(ShipmentService shipmentService,
+      BulkIngestService bulkIngestService, ShipmentExportService shipmentExportService) {
     this.shipmentService = shipmentService;
+    this.bulkIngestService = bulkIngestService;
+    this.shipmentExportService = shipmentExportService;
   }
 
   @GetMapping
@@ -34,10 +59,100 @@ public class ShipmentController {
     return shipmentService.getAllShipments();
   }
 
-  @GetMapping(
-      path = "{shipmentId}/image/download", produces = MediaType.IMAGE_JPEG_VALUE)
-  public byte[] downloadShipmentImage(@PathVariable("shipmentId") String shipmentId) {
-    return shipmentService.downloadShipmentImage(shipmentId);
+  @GetMapping("/page")
+  public ShipmentPage getShipmentPage(
+      @RequestParam(name = "limit", defaultValue = "20") int limit,
+      @RequestParam(name = "nextToken", required = false) String nextToken) {
+    return shipmentService.getShipmentPage(limit, nextToken);
+  }
+
+  /**
+   * Streams every shipment as newline delimited JSON, gzip compressed when the client accepts it.
+   */
+  @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportShipments(
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+    boolean gzip = ShipmentExportService.acceptsGzip(acceptEncoding);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"shipments.ndjson\"");
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(outputStream -> shipmentExportService.export(outputStream, gzip));
+  }
+
+  @GetMapping("/search")
+  public ShipmentPage findShipments(
+      @RequestParam(name = "participant", defaultValue = "recipient") String participant,
+      @RequestParam(name = "city", required = false) String city,
+      @RequestParam(name = "postalCode", required = false) String postalCode,
+      @RequestParam(name = "limit", defaultValue = "20") int limit,
+      @RequestParam(name = "nextToken", required = false) String nextToken) {
+    return shipmentService.findShipments(participant, city, postalCode, limit, nextToken);
+  }
+
+  @GetMapping("/autocomplete")
+  public List<Suggestion> autocomplete(@RequestParam(name = "q") String query,
+      @RequestParam(name = "limit", defaultValue = "10") int limit) {
+    return shipmentService.autocomplete(query, limit);
+  }
+
+  @GetMapping("/stats/weight")
+  public List<WeightStats> getWeightStats(
+      @RequestParam(name = "participant", defaultValue = "recipient") String participant,
+      @RequestParam(name = "city", required = false) String city) {
+    return shipmentService.getWeightStats(participant, city);
+  }
+
+  @GetMapping("/cache/stats")
+  public Map<String, Long> getCacheStats() {
+    return shipmentService.getCacheStats();
+  }
+
+  @GetMapping("/image/cache/stats")
+  public Map<String, Number> getImageCacheStats() {
+    return shipmentService.getImageCacheStats();
+  }
+
+  @GetMapping(path = "{shipmentId}/image/download")
+  public ResponseEntity<StreamingResponseBody> downloadShipmentImage(
+      @PathVariable("shipmentId") String shipmentId, @RequestHeader HttpHeaders headers) {
+    long ifModifiedSince = headers.getIfModifiedSince();
+    ShipmentImage image = shipmentService.downloadShipmentImage(shipmentId,
+        headers.getAccept(),
+        headers.getFirst(HttpHeaders.RANGE),
+        headers.getFirst(HttpHeaders.IF_NONE_MATCH),
+        ifModifiedSince < 0 ? null : Instant.ofEpochMilli(ifModifiedSince));
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.status(image.getStatus())
+        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+        .header(HttpHeaders.CACHE_CONTROL, image.getCacheControl());
+    if (image.getETag() != null) {
+      response.eTag(image.getETag());
+    }
+    if (image.getLastModified() != null) {
+      response.lastModified(image.getLastModified());
+    }
+    if (image.getContentRange() != null) {
+      response.header(HttpHeaders.CONTENT_RANGE, image.getContentRange());
+    }
+    if (image.getContent() == null) {
+      return response.build();
+    }
+    if (image.getContentLength() != null) {
+      response.contentLength(image.getContentLength());
+    }
+    return response
+        .contentType(image.getContentType() == null ? MediaType.IMAGE_JPEG
+            : MediaType.parseMediaType(image.getContentType()))
+        .body(outputStream -> {
+          // the S3 stream is piped to the client as it arrives and always closed
+          try (InputStream content = image.getContent()) {
+            content.transferTo(outputStream);
+          }
+        });
   }
 
   @DeleteMapping("/{shipmentId}")
@@ -45,6 +160,11 @@ public class ShipmentController {
     return shipmentService.deleteShipment(shipmentId);
   }
 
+  @DeleteMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public String deleteShipments(@RequestBody List<String> shipmentIds) {
+    return shipmentService.deleteShipments(shipmentIds);
+  }
+
   @PostMapping(
       path = "{shipmentId}/image/upload",
       consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
@@ -54,6 +174,18 @@ public class ShipmentController {
     shipmentService.uploadShipmentImage(shipmentId, file);
   }
 
+  /**
+   * Accepts a JSON array or newline delimited JSON of shipments, which is read while the items
+   * are being written, and reports the outcome per failed item.
+   */
+  @PostMapping(
+      path = "/bulk",
+      consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public BulkIngestResult ingestShipments(InputStream body) throws IOException {
+    return bulkIngestService.ingest(body);
+  }
+
   @PostMapping(
       consumes = MediaType.APPLICATION_JSON_VALUE,
       produces = MediaType.APPLICATION_JSON_VALUE)
@@ -61,4 +193,43 @@ public class ShipmentController {
     shipmentService.saveShipment(shipment);
   }
 
+  /**
+   * Changes only the attributes in the body, conditional on the version in If-Match if given. The
+   * new version is returned as the ETag.
+   */
+  @PatchMapping(
+      path = "/{shipmentId}",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Shipment> patchShipment(@PathVariable("shipmentId") String shipmentId,
+      @RequestBody JsonNode changes,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return shipmentService.patchShipment(shipmentId, changes, parseVersion(ifMatch))
+        .map(shipment -> ResponseEntity.ok()
+            .eTag(String.valueOf(shipment.getVersion()))
+            .body(shipment))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  private static Long parseVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.equals("*")) {
+      return null;
+    }
+    try {
+      return Long.valueOf(ifMatch.replaceFirst("^W/", "").replace("\"", "").trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("If-Match must be a shipment version, was " + ifMatch);
+    }
+  }
+
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+  }
+
+  @ExceptionHandler(ConcurrentModificationException.class)
+  public ResponseEntity<String> handleConflict(ConcurrentModificationException e) {
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+  }
+
 }
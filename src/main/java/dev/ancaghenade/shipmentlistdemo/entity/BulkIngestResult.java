@@ -0,0 +1,33 @@
+package dev.ancaghenade.shipmentlistdemo.entity;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIngestResult {
+
+  private long received;
+  private long written;
+  private long failed;
+  // the first failures in input order, failed keeps counting beyond them
+  private List<ItemFailure> failures;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class ItemFailure {
+
+    // zero-based position of the item in the request body
+    private long index;
+    private String shipmentId;
+    private String reason;
+
+  }
+}
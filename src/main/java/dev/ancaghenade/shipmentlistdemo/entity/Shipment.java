@@ -1,5 +1,8 @@
 package dev.ancaghenade.shipmentlistdemo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Optional;
+import java.util.function.Function;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,19 +12,30 @@ import org.springframework.lang.NonNull;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @EqualsAndHashCode
 @NoArgsConstructor
 @AllArgsConstructor
 @DynamoDbBean
 public class Shipment {
+
+  // global secondary indexes on flattened copies of the participant addresses, index keys have to
+  // be top level attributes
+  public static final String RECIPIENT_CITY_INDEX = "recipientCity-index";
+  public static final String RECIPIENT_POSTAL_CODE_INDEX = "recipientPostalCode-index";
+  public static final String SENDER_CITY_INDEX = "senderCity-index";
+  public static final String SENDER_POSTAL_CODE_INDEX = "senderPostalCode-index";
+
   private String shipmentId;
   private Participant recipient;
   private Participant sender;
   private Double weight;
   private String imageLink;
+  // incremented on every write of a single shipment, for optimistic locking
+  private Long version;
 
 
   @DynamoDbPartitionKey
@@ -71,4 +85,71 @@ public class Shipment {
   public void setImageLink(String imageLink) {
     this.imageLink = imageLink;
   }
-}
\ No newline at end of file
+
+  @DynamoDbAttribute("version")
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
+  /*
+   * The index keys are derived from the participants whenever the item is written and not part of
+   * the JSON API; values read back from the table are ignored.
+   */
+
+  @JsonIgnore
+  @DynamoDbSecondaryPartitionKey(indexNames = RECIPIENT_CITY_INDEX)
+  @DynamoDbAttribute("recipientCity")
+  public String getRecipientCity() {
+    return addressField(recipient, Address::getCity);
+  }
+
+  public void setRecipientCity(String recipientCity) {
+    // derived from the recipient
+  }
+
+  @JsonIgnore
+  @DynamoDbSecondaryPartitionKey(indexNames = RECIPIENT_POSTAL_CODE_INDEX)
+  @DynamoDbAttribute("recipientPostalCode")
+  public String getRecipientPostalCode() {
+    return addressField(recipient, Address::getPostalCode);
+  }
+
+  public void setRecipientPostalCode(String recipientPostalCode) {
+    // derived from the recipient
+  }
+
+  @JsonIgnore
+  @DynamoDbSecondaryPartitionKey(indexNames = SENDER_CITY_INDEX)
+  @DynamoDbAttribute("senderCity")
+  public String getSenderCity() {
+    return addressField(sender, Address::getCity);
+  }
+
+  public void setSenderCity(String senderCity) {
+    // derived from the sender
+  }
+
+  @JsonIgnore
+  @DynamoDbSecondaryPartitionKey(indexNames = SENDER_POSTAL_CODE_INDEX)
+  @DynamoDbAttribute("senderPostalCode")
+  public String getSenderPostalCode() {
+    return addressField(sender, Address::getPostalCode);
+  }
+
+  public void setSenderPostalCode(String senderPostalCode) {
+    // derived from the sender
+  }
+
+  private static String addressField(Participant participant, Function<Address, String> field) {
+    // index keys cannot be empty strings, such items are simply not indexed
+    return Optional.ofNullable(participant)
+        .map(Participant::getAddress)
+        .map(field)
+        .filter(value -> !value.isEmpty())
+        .orElse(null);
+  }
+}
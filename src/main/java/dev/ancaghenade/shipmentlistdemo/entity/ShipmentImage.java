@@ -0,0 +1,31 @@
+package dev.ancaghenade.shipmentlistdemo.entity;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.http.HttpStatus;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentImage {
+
+  private HttpStatus status;
+  private String contentType;
+  private Long contentLength;
+  private String contentRange;
+  private String eTag;
+  private Instant lastModified;
+  private String cacheControl;
+  // null when there is no body to send, e.g. for 304 Not Modified
+  private InputStream content;
+  // used instead of content by the reactive API
+  private Publisher<ByteBuffer> contentPublisher;
+
+}
@@ -0,0 +1,19 @@
+package dev.ancaghenade.shipmentlistdemo.entity;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentPage {
+
+  private List<Shipment> items;
+  // opaque continuation token, null when there are no more pages
+  private String nextToken;
+
+}
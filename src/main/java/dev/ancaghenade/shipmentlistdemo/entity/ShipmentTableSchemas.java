@@ -0,0 +1,90 @@
+package dev.ancaghenade.shipmentlistdemo.entity;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+/**
+ * Hand-built schemas of the shipment item and its nested documents, equivalent to what
+ * {@link TableSchema#fromBean(Class)} derives from the annotations but wired with plain method
+ * references: nothing is introspected or generated when they are built, and items are mapped
+ * without the bean schema's generic accessors. Attributes added to the entities have to be added
+ * here as well, ShipmentTableSchemasTest compares both mappings.
+ */
+public final class ShipmentTableSchemas {
+
+  public static final TableSchema<Address> ADDRESS = StaticTableSchema.builder(Address.class)
+      .newItemSupplier(Address::new)
+      .addAttribute(String.class, a -> a.name("postalCode")
+          .getter(Address::getPostalCode)
+          .setter(Address::setPostalCode))
+      .addAttribute(String.class, a -> a.name("street")
+          .getter(Address::getStreet)
+          .setter(Address::setStreet))
+      .addAttribute(String.class, a -> a.name("number")
+          .getter(Address::getNumber)
+          .setter(Address::setNumber))
+      .addAttribute(String.class, a -> a.name("city")
+          .getter(Address::getCity)
+          .setter(Address::setCity))
+      .addAttribute(String.class, a -> a.name("additionalInfo")
+          .getter(Address::getAdditionalInfo)
+          .setter(Address::setAdditionalInfo))
+      .build();
+
+  public static final TableSchema<Participant> PARTICIPANT = StaticTableSchema.builder(
+          Participant.class)
+      .newItemSupplier(Participant::new)
+      .addAttribute(String.class, a -> a.name("name")
+          .getter(Participant::getName)
+          .setter(Participant::setName))
+      .addAttribute(EnhancedType.documentOf(Address.class, ADDRESS), a -> a.name("address")
+          .getter(Participant::getAddress)
+          .setter(Participant::setAddress))
+      .build();
+
+  public static final TableSchema<Shipment> SHIPMENT = StaticTableSchema.builder(Shipment.class)
+      .newItemSupplier(Shipment::new)
+      .addAttribute(String.class, a -> a.name("shipmentId")
+          .getter(Shipment::getShipmentId)
+          .setter(Shipment::setShipmentId)
+          .tags(primaryPartitionKey()))
+      .addAttribute(EnhancedType.documentOf(Participant.class, PARTICIPANT),
+          a -> a.name("recipient").getter(Shipment::getRecipient).setter(Shipment::setRecipient))
+      .addAttribute(EnhancedType.documentOf(Participant.class, PARTICIPANT),
+          a -> a.name("sender").getter(Shipment::getSender).setter(Shipment::setSender))
+      .addAttribute(Double.class, a -> a.name("weight")
+          .getter(Shipment::getWeight)
+          .setter(Shipment::setWeight))
+      .addAttribute(String.class, a -> a.name("imageLink")
+          .getter(Shipment::getImageLink)
+          .setter(Shipment::setImageLink))
+      .addAttribute(Long.class, a -> a.name("version")
+          .getter(Shipment::getVersion)
+          .setter(Shipment::setVersion))
+      // derived index keys, written with every item and ignored when read
+      .addAttribute(String.class, a -> a.name("recipientCity")
+          .getter(Shipment::getRecipientCity)
+          .setter(Shipment::setRecipientCity)
+          .tags(secondaryPartitionKey(Shipment.RECIPIENT_CITY_INDEX)))
+      .addAttribute(String.class, a -> a.name("recipientPostalCode")
+          .getter(Shipment::getRecipientPostalCode)
+          .setter(Shipment::setRecipientPostalCode)
+          .tags(secondaryPartitionKey(Shipment.RECIPIENT_POSTAL_CODE_INDEX)))
+      .addAttribute(String.class, a -> a.name("senderCity")
+          .getter(Shipment::getSenderCity)
+          .setter(Shipment::setSenderCity)
+          .tags(secondaryPartitionKey(Shipment.SENDER_CITY_INDEX)))
+      .addAttribute(String.class, a -> a.name("senderPostalCode")
+          .getter(Shipment::getSenderPostalCode)
+          .setter(Shipment::setSenderPostalCode)
+          .tags(secondaryPartitionKey(Shipment.SENDER_POSTAL_CODE_INDEX)))
+      .build();
+
+  private ShipmentTableSchemas() {
+    throw new IllegalStateException("Utility class");
+  }
+}
@@ -0,0 +1,20 @@
+package dev.ancaghenade.shipmentlistdemo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+
+  private String value;
+  // name, street, city or postalCode
+  private String field;
+  // number of shipments with this value in the field
+  private int count;
+
+}
@@ -0,0 +1,39 @@
+package dev.ancaghenade.shipmentlistdemo.entity;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeightStats {
+
+  // recipient or sender
+  private String participant;
+  private String city;
+  // shipments with a weight, the others are not counted
+  private long count;
+  private double total;
+  private Double mean;
+  private Double min;
+  private Double max;
+  private List<Bucket> histogram;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Bucket {
+
+    // inclusive, null for the first bucket
+    private Double from;
+    // exclusive, null for the last bucket
+    private Double to;
+    private long count;
+
+  }
+}
@@ -1,64 +1,436 @@
 package dev.ancaghenade.shipmentlistdemo.repository;
 
+import static java.lang.String.format;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
 import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentPage;
+import dev.ancaghenade.shipmentlistdemo.util.PageToken;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Repository
 public class DynamoDBService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDBService.class);
+    // service limit of BatchWriteItem, also used for the transactions of bulk writes
+    private static final int MAX_BATCH_WRITE = 25;
+    private static final int MAX_BATCH_ATTEMPTS = 8;
+    // items of a cancelled transaction that only failed because of other writes or throttling;
+    // "None" marks the items that were fine themselves
+    private static final Set<String> RETRIED_CANCELLATIONS = Set.of("None", "TransactionConflict",
+            "ThrottlingError", "ProvisionedThroughputExceeded");
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
     private final DynamoDbTable<Shipment> shipmentTable;
+    private final ShipmentCache shipmentCache;
+    private final List<ShipmentListener> shipmentListeners;
+    private final int totalSegments;
+    private final ExecutorService scanExecutor;
 
     @Autowired
-    public DynamoDBService(DynamoDbTable<Shipment> shipmentTable) {
+    public DynamoDBService(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient,
+                           DynamoDbTable<Shipment> shipmentTable, ShipmentCache shipmentCache,
+                           List<ShipmentListener> shipmentListeners, TaskExecutors taskExecutors,
+                           @Value("${shipment.scan.total-segments:1}") int totalSegments) {
+        this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
         this.shipmentTable = shipmentTable;
+        this.shipmentCache = shipmentCache;
+        this.shipmentListeners = shipmentListeners;
+        this.totalSegments = Math.max(1, totalSegments);
+        // one platform thread per segment, so a full table read never runs more requests than
+        // configured; on virtual threads every read still submits at most one task per segment.
+        // Coalesced image link updates share it.
+        this.scanExecutor = taskExecutors.newExecutor("shipment-scan-", this.totalSegments);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanExecutor.shutdownNow();
     }
 
+    /**
+     * Writes the whole shipment and returns it as stored, with its new version. A shipment that
+     * carries a version is only written while the stored one still has that version.
+     */
     public Shipment upsert(Shipment shipment) {
         if (Objects.isNull(shipment.getShipmentId())) {
             shipmentTable.putItem(shipment);
-        } else {
-            shipmentTable.updateItem(shipment);
+            return shipment;
+        }
+        String shipmentId = shipment.getShipmentId();
+        return update(shipmentId, ShipmentUpdate.replacing(shipmentTable.tableSchema(), shipment))
+                .orElseThrow(() -> new ConcurrentModificationException(
+                        format("Shipment %s no longer exists.", shipmentId)));
+    }
+
+    /**
+     * Changes only the attributes at the given document paths, e.g. weight or
+     * recipient.address.city, taking the values from the changes and removing the ones that are
+     * null there. This is a single UpdateItem without reading the shipment first; with an expected
+     * version it is conditional. Returns the shipment as stored, or empty if it does not exist.
+     */
+    public Optional<Shipment> patch(String shipmentId, Shipment changes, Collection<String> paths,
+                                    Long expectedVersion) {
+        Map<String, AttributeValue> values = shipmentTable.tableSchema().itemToMap(changes, false);
+        ShipmentUpdate update = new ShipmentUpdate(shipmentId)
+                .requireExisting()
+                .expectVersion(expectedVersion);
+        paths.forEach(path -> update.set(path, valueAt(values, path)));
+        // the flattened index keys follow every change to the address they are copied from, the
+        // changed values already carry them
+        ShipmentUpdate.INDEX_KEY_SOURCES.forEach((attribute, source) -> {
+            if (paths.stream().anyMatch(
+                    path -> source.equals(path) || source.startsWith(path + "."))) {
+                update.set(attribute, values.get(attribute));
+            }
+        });
+        try {
+            return update(shipmentId, update);
+        } catch (DynamoDbException e) {
+            if (e.awsErrorDetails() != null
+                    && "ValidationException".equals(e.awsErrorDetails().errorCode())) {
+                // e.g. a nested attribute below a participant or address that is not stored
+                throw new IllegalArgumentException(e.awsErrorDetails().errorMessage(), e);
+            }
+            throw e;
         }
-        return shipment;
     }
 
     public Optional<Shipment> getShipment(String shipmentId) {
-        return Optional.ofNullable(
-                shipmentTable.getItem(Key.builder().partitionValue(shipmentId).build()));
+        return Optional.ofNullable(shipmentCache.get(shipmentId,
+                id -> shipmentTable.getItem(Key.builder().partitionValue(id).build())));
     }
 
     public String delete(String shipmentId) {
         shipmentTable.deleteItem(Key.builder().partitionValue(shipmentId).build());
+        shipmentCache.invalidate(shipmentId);
+        notifyDeleted(shipmentId);
 
         return "Shipment has been deleted";
     }
 
+    /**
+     * Deletes many shipments with one BatchWriteItem per 25, unknown ids are ignored.
+     */
+    public void deleteAll(Collection<String> shipmentIds) {
+        try {
+            requireProcessed(writeInBatches(shipmentIds.stream().map(DynamoDBService::key).toList(),
+                    (batch, key) -> batch.addDeleteItem(key),
+                    result -> result.unprocessedDeleteItemsForTable(shipmentTable)));
+            shipmentIds.forEach(this::notifyDeleted);
+        } finally {
+            // also after a failure, some of the batches may have been applied
+            shipmentIds.forEach(shipmentCache::invalidate);
+        }
+    }
+
     public List<Shipment> getAllShipments() {
+        return totalSegments > 1 ? parallelScan(totalSegments) : serialScan();
+    }
+
+    public List<Shipment> serialScan() {
         ScanEnhancedRequest request = ScanEnhancedRequest.builder().build();
         SdkIterable<Shipment> shipments = shipmentTable.scan(request).items();
         return shipments.stream().toList();
     }
 
+    public List<Shipment> parallelScan(int segments) {
+        List<CompletableFuture<List<Shipment>>> futures = IntStream.range(0, segments)
+                .mapToObj(segment -> CompletableFuture.supplyAsync(
+                        () -> scanSegment(segment, segments), scanExecutor))
+                .toList();
+
+        List<Shipment> shipments = new ArrayList<>();
+        try {
+            futures.forEach(future -> shipments.addAll(future.join()));
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            LOGGER.error("Parallel scan of {} segments failed: {}", segments, e.getMessage());
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return shipments;
+    }
+
+    /**
+     * Scans the whole table one page at a time, bypassing the cache. Each page is requested only
+     * when the stream reaches it, so a consumer that does not collect the items holds at most one
+     * page (up to 1 MB of items) however large the table is.
+     */
+    public Stream<List<Shipment>> scanPages() {
+        return shipmentTable.scan(ScanEnhancedRequest.builder().build()).stream()
+                .map(Page::items);
+    }
+
+    private List<Shipment> scanSegment(int segment, int segments) {
+        ScanEnhancedRequest request = ScanEnhancedRequest.builder()
+                .segment(segment)
+                .totalSegments(segments)
+                .build();
+        return shipmentTable.scan(request).items().stream().toList();
+    }
+
+    public ShipmentPage getShipmentPage(int limit, String nextToken) {
+        ScanEnhancedRequest request = ScanEnhancedRequest.builder()
+                .limit(limit)
+                .exclusiveStartKey(PageToken.decode(nextToken))
+                .build();
+        // only the first page is fetched, the iterable would otherwise keep scanning
+        Page<Shipment> page = shipmentTable.scan(request).iterator().next();
+        return new ShipmentPage(page.items(), PageToken.encode(page.lastEvaluatedKey()));
+    }
+
+    /**
+     * Reads one page of the shipments whose index key equals the value, from one of the global
+     * secondary indexes on the flattened participant addresses. Only matching items are read.
+     */
+    public ShipmentPage queryIndex(String indexName, String value, int limit, String nextToken) {
+        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(key(value)))
+                .limit(limit)
+                .exclusiveStartKey(PageToken.decode(nextToken))
+                .build();
+        // only the first page is fetched, the iterable would otherwise keep querying
+        Page<Shipment> page = shipmentTable.index(indexName).query(request).iterator().next();
+        return new ShipmentPage(page.items(), PageToken.encode(page.lastEvaluatedKey()));
+    }
+
     public void removeImageLink(String shipmentId) {
         Optional.ofNullable(shipmentTable.getItem(Key.builder().partitionValue(shipmentId).build()))
                 .ifPresent(shipment -> shipment.setImageLink(null));
     }
 
     public void updateImageLink(String shipmentId, String message) {
-        Optional.ofNullable(shipmentTable.getItem(Key.builder().partitionValue(shipmentId).build()))
-                .ifPresent(shipment -> {
-                    shipment.setImageLink(message);
-                    shipmentTable.updateItem(shipment);
-                });
+        // unknown shipments fail the condition and are ignored
+        update(shipmentId, new ShipmentUpdate(shipmentId)
+                .requireExisting()
+                .set("imageLink", message == null ? null : AttributeValue.fromS(message)));
+    }
+
+    /**
+     * Applies many image link updates concurrently, each one an UpdateItem of only the image link
+     * like {@link #updateImageLink(String, String)}, so concurrent changes to other attributes are
+     * kept and the version is incremented. Unknown shipment ids are ignored. Waits for all updates
+     * and then rethrows the first failure.
+     */
+    public void updateImageLinks(Map<String, String> imageLinks) {
+        List<CompletableFuture<Void>> updates = imageLinks.entrySet().stream()
+                .map(link -> CompletableFuture.runAsync(
+                        () -> updateImageLink(link.getKey(), link.getValue()), scanExecutor))
+                .toList();
+        try {
+            CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Stores whole shipments with one TransactWriteItems request per 25. Every item is an update
+     * that replaces all attributes and increments the stored version, like {@link #upsert} without
+     * an expected version, so a bulk write never moves a version back to one a client may still
+     * hold as an ETag. Versions carried by the shipments are ignored. Transactions cancelled by a
+     * conflicting write or throttling are retried with backoff; the reason is returned per
+     * shipment id for the items the service rejected and for those still cancelled after the last
+     * attempt, instead of failing the whole call.
+     */
+    public Map<String, String> putAll(List<Shipment> shipments) {
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (int i = 0; i < shipments.size(); i += MAX_BATCH_WRITE) {
+            List<Shipment> pending = shipments.subList(i, Math.min(i + MAX_BATCH_WRITE, shipments.size()));
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                if (attempt > MAX_BATCH_ATTEMPTS) {
+                    pending.forEach(shipment -> failed.put(shipment.getShipmentId(),
+                            "Still conflicting after " + MAX_BATCH_ATTEMPTS + " attempts"));
+                    break;
+                }
+                if (attempt > 1) {
+                    backOff(attempt);
+                }
+                pending = replaceInTransaction(pending, failed);
+            }
+        }
+        return failed;
+    }
+
+    /*
+     * Returns the shipments to retry. A cancelled transaction wrote nothing, the items it reports
+     * with a reason other than a conflict or throttling are dropped as failed.
+     */
+    private List<Shipment> replaceInTransaction(List<Shipment> shipments, Map<String, String> failed) {
+        try {
+            dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                    .transactItems(shipments.stream()
+                            .map(shipment -> TransactWriteItem.builder()
+                                    .update(ShipmentUpdate.replacing(shipmentTable.tableSchema(), shipment)
+                                            .expectVersion(null)
+                                            .toUpdate(shipmentTable.tableName()))
+                                    .build())
+                            .toList())
+                    .build());
+        } catch (TransactionCanceledException e) {
+            List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+            List<Shipment> retry = new ArrayList<>();
+            for (int i = 0; i < shipments.size(); i++) {
+                CancellationReason reason = i < reasons.size() ? reasons.get(i) : null;
+                if (reason == null || RETRIED_CANCELLATIONS.contains(reason.code())) {
+                    retry.add(shipments.get(i));
+                } else {
+                    failed.put(shipments.get(i).getShipmentId(), reason.message() == null
+                            ? reason.code() : reason.message());
+                }
+            }
+            return retry;
+        } catch (RuntimeException e) {
+            // the transaction may or may not have been applied
+            shipments.forEach(shipment -> shipmentCache.invalidate(shipment.getShipmentId()));
+            throw e;
+        }
+        shipments.forEach(shipment -> {
+            // the stored version is not returned by a transaction, the next read loads it
+            shipmentCache.invalidate(shipment.getShipmentId());
+            notifySaved(shipment);
+        });
+        return List.of();
+    }
+
+    private static void requireProcessed(List<?> unprocessed) {
+        if (!unprocessed.isEmpty()) {
+            throw new IllegalStateException(
+                    unprocessed.size() + " shipments were still unprocessed after " + MAX_BATCH_ATTEMPTS + " attempts");
+        }
+    }
+
+    private <T> List<T> writeInBatches(List<T> items, BiConsumer<WriteBatch.Builder<Shipment>, T> add,
+                                       Function<BatchWriteResult, List<T>> unprocessed) {
+        List<T> failed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += MAX_BATCH_WRITE) {
+            List<T> pending = items.subList(i, Math.min(i + MAX_BATCH_WRITE, items.size()));
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                if (attempt > MAX_BATCH_ATTEMPTS) {
+                    failed.addAll(pending);
+                    break;
+                }
+                if (attempt > 1) {
+                    backOff(attempt);
+                }
+                WriteBatch.Builder<Shipment> batch = WriteBatch.builder(Shipment.class)
+                        .mappedTableResource(shipmentTable);
+                pending.forEach(item -> add.accept(batch, item));
+                BatchWriteResult result = enhancedClient.batchWriteItem(BatchWriteItemEnhancedRequest.builder()
+                        .writeBatches(batch.build())
+                        .build());
+                pending = unprocessed.apply(result);
+            }
+        }
+        return failed;
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            // exponential backoff with full jitter, starting at 50 ms
+            long maxDelay = 50L << (attempt - 2);
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a batch write", e);
+        }
+    }
+
+    private static Key key(String shipmentId) {
+        return Key.builder().partitionValue(shipmentId).build();
+    }
+
+    public Map<String, Long> getCacheStats() {
+        return shipmentCache.stats();
+    }
+
+    private Optional<Shipment> update(String shipmentId, ShipmentUpdate update) {
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(
+                    update.toRequest(shipmentTable.tableName()));
+            // the new image of the item is what later reads should see
+            Shipment stored = shipmentTable.tableSchema().mapToItem(response.attributes());
+            shipmentCache.put(stored);
+            notifySaved(stored);
+            return Optional.of(stored);
+        } catch (ConditionalCheckFailedException e) {
+            shipmentCache.invalidate(shipmentId);
+            if (!e.hasItem()) {
+                return Optional.empty();
+            }
+            AttributeValue version = e.item().get(ShipmentUpdate.VERSION_ATTRIBUTE);
+            throw new ConcurrentModificationException(format("Shipment %s is at version %s.",
+                    shipmentId, version == null ? "0" : version.n()));
+        } catch (RuntimeException e) {
+            // the cached copy may already carry the failed change
+            shipmentCache.invalidate(shipmentId);
+            throw e;
+        }
+    }
+
+    private void notifySaved(Shipment shipment) {
+        ShipmentListeners.notifySaved(shipmentListeners, shipment);
+    }
 
+    private void notifyDeleted(String shipmentId) {
+        ShipmentListeners.notifyDeleted(shipmentListeners, shipmentId);
+    }
+
+    private static AttributeValue valueAt(Map<String, AttributeValue> item, String path) {
+        AttributeValue value = null;
+        Map<String, AttributeValue> attributes = item;
+        for (String name : path.split("\\.")) {
+            if (attributes == null) {
+                return null;
+            }
+            value = attributes.get(name);
+            attributes = value != null && value.hasM() ? value.m() : null;
+        }
+        return value;
     }
 }
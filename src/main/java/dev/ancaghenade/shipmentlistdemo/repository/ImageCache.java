@@ -0,0 +1,494 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Two tier cache for image bytes, keyed by the S3 object key. The memory tier keeps images in direct
+ * buffers so they stay out of the garbage collected heap, the disk tier keeps them in files that
+ * are memory-mapped on read and survive restarts. Both tiers evict the least recently used images
+ * once their byte budget is exceeded. Every invalidation starts a new generation; an image read
+ * from S3 or disk under an older generation may already be outdated and is not stored.
+ *
+ * <p>Only the instance that consumes a picture notification invalidates the rewritten key, so an
+ * image that was checked against S3 longer than shipment.image-cache.revalidate-after ago is no
+ * longer fresh and has to be revalidated with its ETag before it is served again. Files left by a
+ * previous run count as checked when they were last written or revalidated. Disk writes run on a
+ * background thread, at most a few at a time; a miss beyond that is only kept in memory.
+ */
+@Component
+@ConditionalOnProperty(name = "shipment.image-cache.enabled", havingValue = "true")
+public class ImageCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ImageCache.class);
+  private static final String FILE_SUFFIX = ".img";
+  private static final String TEMP_PREFIX = "write-";
+  private static final String TEMP_SUFFIX = ".tmp";
+  // disk writes queued or running, each holds on to an image of up to max-entry-size
+  private static final int MAX_PENDING_WRITES = 4;
+
+  public record CachedImage(String key, String contentType, String eTag, Instant lastModified,
+                            ByteBuffer data) {
+
+    public long size() {
+      return data.remaining();
+    }
+  }
+
+  private record DiskEntry(Path path, long size) {
+
+  }
+
+  private final long maxMemoryBytes;
+  private final long maxDiskBytes;
+  private final long maxEntryBytes;
+  private final Path directory;
+  private final Duration revalidateAfter;
+  private final ExecutorService diskWriter;
+  private final Semaphore pendingWrites = new Semaphore(MAX_PENDING_WRITES);
+
+  // both maps are in access order and only used while holding the lock
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<String, CachedImage> memory = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(16, 0.75f, true);
+  // when each key in either tier was last fetched from or confirmed by S3
+  private final Map<String, Instant> validatedAt = new HashMap<>();
+  private long memoryBytes;
+  private long diskBytes;
+  private long generation;
+
+  private final AtomicLong memoryHits = new AtomicLong();
+  private final AtomicLong diskHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong memoryEvictions = new AtomicLong();
+  private final AtomicLong diskEvictions = new AtomicLong();
+
+  @Autowired
+  public ImageCache(@Value("${shipment.image-cache.memory-size:64MB}") DataSize maxMemory,
+      @Value("${shipment.image-cache.disk-size:1GB}") DataSize maxDisk,
+      @Value("${shipment.image-cache.max-entry-size:8MB}") DataSize maxEntry,
+      @Value("${shipment.image-cache.directory:${java.io.tmpdir}/shipment-image-cache}")
+      String directory,
+      @Value("${shipment.image-cache.revalidate-after:1m}") Duration revalidateAfter,
+      TaskExecutors taskExecutors) {
+    this.maxMemoryBytes = maxMemory.toBytes();
+    this.maxDiskBytes = maxDisk.toBytes();
+    this.maxEntryBytes = maxEntry.toBytes();
+    this.directory = Path.of(directory);
+    this.revalidateAfter = revalidateAfter;
+    this.diskWriter = taskExecutors.newExecutor("image-cache-writer-", 1);
+  }
+
+  /**
+   * Rebuilds the disk index from the files left by a previous run, oldest files first so they are
+   * the first to be evicted. Temporary files of writes that never completed are deleted.
+   */
+  @PostConstruct
+  public void loadDiskTier() throws IOException {
+    Files.createDirectories(directory);
+    try (Stream<Path> files = Files.list(directory)) {
+      files.filter(ImageCache::isTempFile).forEach(ImageCache::deleteQuietly);
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      files.filter(path -> path.toString().endsWith(FILE_SUFFIX))
+          .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+          .forEach(path -> {
+            try {
+              CachedImage image = readFile(path);
+              long size = Files.size(path);
+              disk.put(image.key(), new DiskEntry(path, size));
+              validatedAt.put(image.key(), Files.getLastModifiedTime(path).toInstant());
+              diskBytes += size;
+            } catch (IOException | RuntimeException e) {
+              LOGGER.warn("Dropping unreadable image cache file {}: {}", path, e.getMessage());
+              deleteQuietly(path);
+            }
+          });
+    }
+    evictDisk();
+    LOGGER.info("Image cache loaded {} images ({} bytes) from {}", disk.size(), diskBytes,
+        directory);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    diskWriter.shutdownNow();
+  }
+
+  public boolean accepts(long size) {
+    return size <= maxEntryBytes;
+  }
+
+  /**
+   * The current generation, to be taken before reading an image from S3 and passed to
+   * {@link #put(CachedImage, long)} with it.
+   */
+  public long generation() {
+    lock.lock();
+    try {
+      return generation;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Optional<CachedImage> get(String key) {
+    DiskEntry diskEntry;
+    long readGeneration;
+    lock.lock();
+    try {
+      CachedImage image = memory.get(key);
+      if (image != null) {
+        memoryHits.incrementAndGet();
+        return Optional.of(image);
+      }
+      diskEntry = disk.get(key);
+      readGeneration = generation;
+    } finally {
+      lock.unlock();
+    }
+
+    if (diskEntry == null) {
+      misses.incrementAndGet();
+      return Optional.empty();
+    }
+    try {
+      CachedImage mapped = readFile(diskEntry.path());
+      diskHits.incrementAndGet();
+      // promote to the memory tier, the mapping itself is released once it is unreachable
+      CachedImage promoted = new CachedImage(mapped.key(), mapped.contentType(), mapped.eTag(),
+          mapped.lastModified(), copyToDirect(mapped.data()));
+      putInMemory(promoted, readGeneration, null);
+      return Optional.of(promoted);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to read cached image {}: {}", key, e.getMessage());
+      invalidate(key);
+      misses.incrementAndGet();
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Whether the cached image was fetched from or confirmed by S3 recently enough to be served
+   * without asking S3 again.
+   */
+  public boolean isFresh(CachedImage image) {
+    lock.lock();
+    try {
+      Instant validated = validatedAt.get(image.key());
+      return validated != null && validated.plus(revalidateAfter).isAfter(Instant.now());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Records that S3 answered a conditional GET with the cached ETag with 304, the image stays
+   * fresh for another revalidate-after.
+   */
+  public void revalidated(String key) {
+    Instant now = Instant.now();
+    DiskEntry diskEntry;
+    lock.lock();
+    try {
+      if (!memory.containsKey(key) && !disk.containsKey(key)) {
+        return;
+      }
+      validatedAt.put(key, now);
+      diskEntry = disk.get(key);
+    } finally {
+      lock.unlock();
+    }
+    if (diskEntry != null) {
+      try {
+        // read back as the validation time after a restart
+        Files.setLastModifiedTime(diskEntry.path(), FileTime.from(now));
+      } catch (IOException e) {
+        LOGGER.warn("Failed to touch image cache file {}: {}", diskEntry.path(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Stores the image in memory and hands the disk copy to the background writer, unless the cache
+   * was invalidated since the given generation was taken. The buffer is expected to be direct and
+   * is kept as is.
+   */
+  public void put(CachedImage image, long readGeneration) {
+    if (!accepts(image.size()) || !putInMemory(image, readGeneration, Instant.now())) {
+      return;
+    }
+    // the request thread does not wait for the disk, a write that cannot be queued is skipped
+    if (!pendingWrites.tryAcquire()) {
+      return;
+    }
+    try {
+      diskWriter.execute(() -> {
+        try {
+          writeFile(image, readGeneration);
+        } catch (IOException | RuntimeException e) {
+          LOGGER.warn("Failed to write image {} to the disk cache: {}", image.key(),
+              e.getMessage());
+        } finally {
+          pendingWrites.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      pendingWrites.release();
+    }
+  }
+
+  public void invalidate(String key) {
+    invalidateMatching(key::equals);
+  }
+
+  public void invalidatePrefix(String prefix) {
+    invalidateMatching(key -> key.startsWith(prefix));
+  }
+
+  public Map<String, Number> stats() {
+    long hits = memoryHits.get() + diskHits.get();
+    long requests = hits + misses.get();
+    lock.lock();
+    try {
+      return Map.of(
+          "memoryEntries", memory.size(),
+          "memoryBytes", memoryBytes,
+          "diskEntries", disk.size(),
+          "diskBytes", diskBytes,
+          "memoryHits", memoryHits.get(),
+          "diskHits", diskHits.get(),
+          "misses", misses.get(),
+          "memoryEvictions", memoryEvictions.get(),
+          "diskEvictions", diskEvictions.get(),
+          "hitRatio", requests == 0 ? 0.0 : (double) hits / requests);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // a null validation time keeps the one already recorded, e.g. when promoting from disk
+  private boolean putInMemory(CachedImage image, long readGeneration, Instant validated) {
+    lock.lock();
+    try {
+      if (generation != readGeneration) {
+        return false;
+      }
+      CachedImage previous = memory.put(image.key(), image);
+      if (previous != null) {
+        memoryBytes -= previous.size();
+      }
+      memoryBytes += image.size();
+      if (validated != null) {
+        validatedAt.put(image.key(), validated);
+      }
+      Iterator<Map.Entry<String, CachedImage>> eldest = memory.entrySet().iterator();
+      while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+        Map.Entry<String, CachedImage> entry = eldest.next();
+        memoryBytes -= entry.getValue().size();
+        eldest.remove();
+        if (!disk.containsKey(entry.getKey())) {
+          validatedAt.remove(entry.getKey());
+        }
+        memoryEvictions.incrementAndGet();
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void invalidateMatching(Predicate<String> matches) {
+    lock.lock();
+    try {
+      generation++;
+      Iterator<Map.Entry<String, CachedImage>> memoryEntries = memory.entrySet().iterator();
+      while (memoryEntries.hasNext()) {
+        Map.Entry<String, CachedImage> entry = memoryEntries.next();
+        if (matches.test(entry.getKey())) {
+          memoryBytes -= entry.getValue().size();
+          memoryEntries.remove();
+        }
+      }
+      Iterator<Map.Entry<String, DiskEntry>> diskEntries = disk.entrySet().iterator();
+      while (diskEntries.hasNext()) {
+        Map.Entry<String, DiskEntry> entry = diskEntries.next();
+        if (matches.test(entry.getKey())) {
+          diskBytes -= entry.getValue().size();
+          deleteQuietly(entry.getValue().path());
+          diskEntries.remove();
+        }
+      }
+      validatedAt.keySet().removeIf(matches);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void evictDisk() {
+    Iterator<Map.Entry<String, DiskEntry>> eldest = disk.entrySet().iterator();
+    while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+      Map.Entry<String, DiskEntry> entry = eldest.next();
+      diskBytes -= entry.getValue().size();
+      deleteQuietly(entry.getValue().path());
+      eldest.remove();
+      if (!memory.containsKey(entry.getKey())) {
+        validatedAt.remove(entry.getKey());
+      }
+      diskEvictions.incrementAndGet();
+    }
+  }
+
+  /*
+   * File layout: key, content type and ETag as length-prefixed UTF-8 strings, the last modified
+   * epoch millis (or -1), then the image bytes.
+   */
+  private void writeFile(CachedImage image, long readGeneration) throws IOException {
+    Path target = directory.resolve(fileName(image.key()));
+    Path temp = Files.createTempFile(directory, TEMP_PREFIX, TEMP_SUFFIX);
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(headerSize(image));
+      putString(header, image.key());
+      putString(header, image.contentType());
+      putString(header, image.eTag());
+      header.putLong(image.lastModified() == null ? -1 : image.lastModified().toEpochMilli());
+      header.flip();
+      ByteBuffer[] buffers = {header, image.data().duplicate()};
+      while (buffers[1].hasRemaining()) {
+        channel.write(buffers);
+      }
+    } catch (IOException | RuntimeException e) {
+      deleteQuietly(temp);
+      throw e;
+    }
+
+    long size = Files.size(temp);
+    lock.lock();
+    try {
+      // moved under the lock, so an invalidation either deletes the new file or prevents it
+      if (generation != readGeneration) {
+        deleteQuietly(temp);
+        return;
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        deleteQuietly(temp);
+        throw e;
+      }
+      DiskEntry previous = disk.put(image.key(), new DiskEntry(target, size));
+      if (previous != null) {
+        diskBytes -= previous.size();
+      }
+      diskBytes += size;
+      evictDisk();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static CachedImage readFile(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      String key = getString(mapped);
+      String contentType = getString(mapped);
+      String eTag = getString(mapped);
+      long lastModified = mapped.getLong();
+      return new CachedImage(key, contentType, eTag,
+          lastModified < 0 ? null : Instant.ofEpochMilli(lastModified), mapped.slice());
+    }
+  }
+
+  private static ByteBuffer copyToDirect(ByteBuffer source) {
+    ByteBuffer copy = ByteBuffer.allocateDirect(source.remaining());
+    copy.put(source.duplicate()).flip();
+    return copy.asReadOnlyBuffer();
+  }
+
+  private static int headerSize(CachedImage image) {
+    return 3 * Integer.BYTES + Long.BYTES
+        + utf8Length(image.key()) + utf8Length(image.contentType()) + utf8Length(image.eTag());
+  }
+
+  private static int utf8Length(String value) {
+    return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private static void putString(ByteBuffer buffer, String value) {
+    if (value == null) {
+      buffer.putInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length).put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static String fileName(String key) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(hash) + FILE_SUFFIX;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static boolean isTempFile(Path path) {
+    String name = path.getFileName().toString();
+    return name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX);
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to delete image cache file {}: {}", path, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import static java.lang.String.format;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+/**
+ * Non-blocking counterpart of {@link DynamoDBService} for the reactive API. It shares the shipment
+ * cache with the servlet stack, so writes through either one are visible to both.
+ */
+@Repository
+@ConditionalOnProperty(name = "shipment.reactive.enabled", havingValue = "true")
+public class ReactiveDynamoDBService {
+
+  private final DynamoDbAsyncClient dynamoDbClient;
+  private final DynamoDbAsyncTable<Shipment> shipmentTable;
+  private final ShipmentCache shipmentCache;
+  private final List<ShipmentListener> shipmentListeners;
+
+  @Autowired
+  public ReactiveDynamoDBService(DynamoDbAsyncClient dynamoDbAsyncClient,
+      DynamoDbAsyncTable<Shipment> shipmentAsyncTable, ShipmentCache shipmentCache,
+      List<ShipmentListener> shipmentListeners) {
+    this.dynamoDbClient = dynamoDbAsyncClient;
+    this.shipmentTable = shipmentAsyncTable;
+    this.shipmentCache = shipmentCache;
+    this.shipmentListeners = shipmentListeners;
+  }
+
+  public Flux<Shipment> getAllShipments() {
+    // items are emitted as each scanned page arrives, the next page is only requested on demand
+    return Flux.from(shipmentTable.scan().items());
+  }
+
+  public Mono<Shipment> getShipment(String shipmentId) {
+    return Mono.justOrEmpty(shipmentCache.getIfPresent(shipmentId))
+        .switchIfEmpty(Mono.fromFuture(() -> shipmentTable.getItem(key(shipmentId)))
+            .doOnNext(shipmentCache::put));
+  }
+
+  public Mono<Shipment> upsert(Shipment shipment) {
+    if (Objects.isNull(shipment.getShipmentId())) {
+      return Mono.fromFuture(() -> shipmentTable.putItem(shipment)).thenReturn(shipment);
+    }
+    String shipmentId = shipment.getShipmentId();
+    // versioned like DynamoDBService#upsert, the new image is what later reads should see
+    return Mono.fromFuture(() -> dynamoDbClient.updateItem(
+            ShipmentUpdate.replacing(shipmentTable.tableSchema(), shipment)
+                .toRequest(shipmentTable.tableName())))
+        .map(response -> shipmentTable.tableSchema().mapToItem(response.attributes()))
+        .doOnNext(shipmentCache::put)
+        .doOnNext(stored -> ShipmentListeners.notifySaved(shipmentListeners, stored))
+        .doOnError(e -> shipmentCache.invalidate(shipmentId))
+        .onErrorMap(ConditionalCheckFailedException.class,
+            e -> new ConcurrentModificationException(
+                format("Shipment %s was changed concurrently.", shipmentId), e));
+  }
+
+  public Mono<Void> updateImageLink(String shipmentId, String imageLink) {
+    return Mono.fromFuture(() -> dynamoDbClient.updateItem(new ShipmentUpdate(shipmentId)
+            .requireExisting()
+            .set("imageLink", AttributeValue.fromS(imageLink))
+            .toRequest(shipmentTable.tableName())))
+        .map(response -> shipmentTable.tableSchema().mapToItem(response.attributes()))
+        .doOnNext(shipmentCache::put)
+        .doOnNext(stored -> ShipmentListeners.notifySaved(shipmentListeners, stored))
+        .doOnError(e -> shipmentCache.invalidate(shipmentId))
+        // the shipment was deleted in the meantime
+        .onErrorResume(ConditionalCheckFailedException.class, e -> Mono.empty())
+        .then();
+  }
+
+  public Mono<String> delete(String shipmentId) {
+    return Mono.fromFuture(() -> shipmentTable.deleteItem(key(shipmentId)))
+        .then(Mono.fromRunnable(() -> {
+          shipmentCache.invalidate(shipmentId);
+          ShipmentListeners.notifyDeleted(shipmentListeners, shipmentId);
+        }))
+        .thenReturn("Shipment has been deleted");
+  }
+
+  private static Key key(String shipmentId) {
+    return Key.builder().partitionValue(shipmentId).build();
+  }
+}
@@ -0,0 +1,111 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import dev.ancaghenade.shipmentlistdemo.buckets.BucketName;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.ResponsePublisher;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+/**
+ * Non-blocking counterpart of {@link S3StorageService} for the reactive API. Object bodies are
+ * passed through as {@link ByteBuffer} publishers in both directions, so the SDK only reads from
+ * the client, or from S3, as fast as the other side consumes.
+ */
+@Service
+@ConditionalOnProperty(name = "shipment.reactive.enabled", havingValue = "true")
+public class ReactiveS3StorageService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveS3StorageService.class);
+  // service limit of DeleteObjects
+  private static final int MAX_DELETE_KEYS = 1000;
+
+  private final S3AsyncClient s3;
+  private final BucketName bucketName;
+  private final Optional<ImageCache> imageCache;
+
+  @Autowired
+  public ReactiveS3StorageService(S3AsyncClient s3, BucketName bucketName,
+      Optional<ImageCache> imageCache) {
+    this.s3 = s3;
+    this.bucketName = bucketName;
+    this.imageCache = imageCache;
+  }
+
+  /**
+   * Uploads a body of unknown length. The client has multipart enabled, so the content is sent
+   * part by part as it arrives instead of being collected first.
+   */
+  public Mono<Void> save(String key, String contentType, Publisher<ByteBuffer> content) {
+    PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+        .bucket(bucketName.getShipmentPictureBucket())
+        .key(key)
+        .contentType(contentType)
+        .build();
+    return Mono.fromFuture(() -> s3.putObject(putObjectRequest,
+            AsyncRequestBody.fromPublisher(content)))
+        .doOnNext(response -> LOGGER.info("File saved to S3 at {}", key))
+        .then();
+  }
+
+  /**
+   * Completes once S3 has answered with the response headers, the body is only fetched while the
+   * returned publisher is subscribed. 304, 412 and 416 outcomes are reported as an
+   * {@link software.amazon.awssdk.services.s3.model.S3Exception} with that status code.
+   */
+  public Mono<ResponsePublisher<GetObjectResponse>> download(String key, String range,
+      String ifNoneMatch, Instant ifModifiedSince) {
+    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+        .bucket(bucketName.getShipmentPictureBucket())
+        .key(key)
+        .range(range)
+        .ifNoneMatch(ifNoneMatch)
+        .ifModifiedSince(ifModifiedSince)
+        .build();
+    return Mono.fromFuture(() -> s3.getObject(getObjectRequest,
+        AsyncResponseTransformer.toPublisher()));
+  }
+
+  public Mono<Void> delete(String folderPrefix) {
+    imageCache.ifPresent(cache -> cache.invalidatePrefix(folderPrefix + "/"));
+    return Flux.from(s3.listObjectsV2Paginator(builder -> builder
+                .bucket(bucketName.getShipmentPictureBucket())
+                .prefix(folderPrefix + "/"))
+            .contents())
+        .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+        .buffer(MAX_DELETE_KEYS)
+        .concatMap(keys -> Mono.fromFuture(() -> s3.deleteObjects(DeleteObjectsRequest.builder()
+            .bucket(bucketName.getShipmentPictureBucket())
+            .delete(builder -> builder.objects(keys))
+            .build())))
+        .doOnNext(response -> handleDeleteErrors(response.errors()))
+        .onErrorResume(SdkException.class, e -> {
+          LOGGER.error("Error occurred during object deletion: {}", e.getMessage());
+          return Mono.empty();
+        })
+        .then();
+  }
+
+  private void handleDeleteErrors(List<S3Error> errors) {
+    errors.forEach(error -> LOGGER.error("Object: {}, Error Code: {}, Error Message: {}",
+        error.key(), error.code(), error.message()));
+  }
+}
@@ -1,43 +1,124 @@
 package dev.ancaghenade.shipmentlistdemo.repository;
 
+import static java.lang.String.format;
+
 import dev.ancaghenade.shipmentlistdemo.buckets.BucketName;
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
 import dev.ancaghenade.shipmentlistdemo.util.FileUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+/**
+ * Stores and reads the shipment images. Multipart uploads, ranged downloads and batch deletes run
+ * their requests on one shared transfer pool of shipment.transfer.max-threads threads, the global
+ * limit of S3 transfer requests of this instance next to the S3 client's connection pool. Each
+ * transfer has at most shipment.transfer.concurrency requests in that pool at a time and waits on
+ * its own thread for more, so one large transfer cannot take all the threads from the others.
+ */
 @Service
 public class S3StorageService {
 
   private final S3Client s3;
   private static final Logger LOGGER = LoggerFactory.getLogger(S3StorageService.class);
+  // service limit of DeleteObjects
+  private static final int MAX_DELETE_KEYS = 1000;
   private final BucketName bucketName;
+  private final long multipartThreshold;
+  private final int partSize;
+  private final int transferConcurrency;
+  private final ExecutorService transferExecutor;
+  private final Optional<ImageCache> imageCache;
+  // object sizes per direction, their sums are the bytes transferred
+  private final DistributionSummary uploadSizes;
+  private final DistributionSummary downloadSizes;
 
   @Autowired
-  public S3StorageService(S3Client s3, BucketName bucketName) {
+  public S3StorageService(S3Client s3, BucketName bucketName, Optional<ImageCache> imageCache,
+      TaskExecutors taskExecutors, MeterRegistry meterRegistry,
+      @Value("${shipment.transfer.multipart-threshold:16MB}") DataSize multipartThreshold,
+      @Value("${shipment.transfer.part-size:8MB}") DataSize partSize,
+      @Value("${shipment.transfer.concurrency:4}") int transferConcurrency,
+      @Value("${shipment.transfer.max-threads:32}") int transferThreads) {
     this.s3 = s3;
     this.bucketName = bucketName;
+    this.imageCache = imageCache;
+    this.multipartThreshold = multipartThreshold.toBytes();
+    this.partSize = Math.toIntExact(partSize.toBytes());
+    this.transferConcurrency = transferConcurrency;
+    this.transferExecutor = taskExecutors.newExecutor("s3-transfer-", transferThreads);
+    this.uploadSizes = transferSize(meterRegistry, "upload");
+    this.downloadSizes = transferSize(meterRegistry, "download");
+  }
+
+  private static DistributionSummary transferSize(MeterRegistry meterRegistry, String direction) {
+    return DistributionSummary.builder("s3.transfer.size")
+        .description("Bytes of S3 object bodies uploaded or downloaded")
+        .baseUnit("bytes")
+        .tag("direction", direction)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(1024.0)
+        .maximumExpectedValue(1024.0 * 1024 * 1024)
+        .register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    transferExecutor.shutdownNow();
   }
 
   public void save(String path, String fileName, MultipartFile multipartFile) throws IOException {
-    PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-            .bucket(bucketName.getShipmentPictureBucket())
-            .key(path + "/" + fileName)
-            .contentType(multipartFile.getContentType())
-            .contentLength(multipartFile.getSize())
-            .build();
+    String key = path + "/" + fileName;
+    long size = multipartFile.getSize();
 
-    try {
-      s3.putObject(putObjectRequest, RequestBody.fromFile(FileUtil.convertMultipartFileToFile(multipartFile)));
+    // the body is streamed from the multipart input, never copied whole into memory or a temp file
+    try (InputStream inputStream = multipartFile.getInputStream()) {
+      if (size < multipartThreshold) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName.getShipmentPictureBucket())
+                .key(key)
+                .contentType(multipartFile.getContentType())
+                .contentLength(size)
+                .build();
+        s3.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, size));
+      } else {
+        multipartUpload(key, multipartFile.getContentType(), inputStream, size);
+      }
+      uploadSizes.record(size);
       LOGGER.info("File {} saved to S3 at {}", fileName, path);
     } catch (SdkException e) {
       LOGGER.error("Failed to save file to S3: {}", e.getMessage());
@@ -45,14 +126,95 @@ public class S3StorageService {
     }
   }
 
-  public byte[] download(String key) throws IOException {
-    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+  private void multipartUpload(String key, String contentType, InputStream inputStream, long size)
+      throws IOException {
+    String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
             .bucket(bucketName.getShipmentPictureBucket())
             .key(key)
-            .build();
+            .contentType(contentType)
+            .build())
+        .uploadId();
+
+    // at most transferConcurrency parts are buffered at any time, which bounds heap per upload
+    Semaphore buffers = new Semaphore(transferConcurrency);
+    List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+    AtomicBoolean aborted = new AtomicBoolean();
+    try {
+      long offset = 0;
+      for (int partNumber = 1; offset < size; partNumber++) {
+        int length = (int) Math.min(partSize, size - offset);
+        buffers.acquire();
+        byte[] part;
+        try {
+          part = FileUtil.readPart(inputStream, length);
+        } catch (IOException e) {
+          buffers.release();
+          throw e;
+        }
+        int number = partNumber;
+        parts.add(CompletableFuture.supplyAsync(
+                () -> aborted.get() ? null : uploadPart(key, uploadId, number, part),
+                transferExecutor)
+            .whenComplete((completedPart, e) -> buffers.release()));
+        offset += length;
+      }
+
+      List<CompletedPart> completedParts = parts.stream()
+          .map(CompletableFuture::join)
+          .sorted(Comparator.comparing(CompletedPart::partNumber))
+          .toList();
+      s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+          .bucket(bucketName.getShipmentPictureBucket())
+          .key(key)
+          .uploadId(uploadId)
+          .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+          .build());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abortMultipartUpload(key, uploadId, parts, aborted);
+      throw new IOException("Interrupted while uploading " + key, e);
+    } catch (IOException | RuntimeException e) {
+      abortMultipartUpload(key, uploadId, parts, aborted);
+      if (e instanceof CompletionException && e.getCause() instanceof SdkException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] part) {
+    UploadPartResponse response = s3.uploadPart(UploadPartRequest.builder()
+            .bucket(bucketName.getShipmentPictureBucket())
+            .key(key)
+            .uploadId(uploadId)
+            .partNumber(partNumber)
+            .contentLength((long) part.length)
+            .build(),
+        RequestBody.fromContentProvider(() -> new ByteArrayInputStream(part), part.length,
+            "application/octet-stream"));
+    return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+  }
+
+  private void abortMultipartUpload(String key, String uploadId,
+      List<CompletableFuture<CompletedPart>> parts, AtomicBoolean aborted) {
+    // parts not started yet are skipped, running ones could otherwise outlive the abort
+    aborted.set(true);
+    awaitQuietly(parts);
+    try {
+      s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+          .bucket(bucketName.getShipmentPictureBucket())
+          .key(key)
+          .uploadId(uploadId)
+          .build());
+    } catch (SdkException e) {
+      LOGGER.error("Failed to abort multipart upload {} of {}: {}", uploadId, key, e.getMessage());
+    }
+  }
 
+  public byte[] download(String key) throws IOException {
     try {
-      return s3.getObject(getObjectRequest).readAllBytes();
+      ByteBuffer content = download(key, size -> ByteBuffer.allocate(Math.toIntExact(size)));
+      return content.array();
     } catch (NoSuchKeyException e) {
       LOGGER.warn("Could not find object: {}", key);
       return new byte[0]; // Return empty byte array when object is not found
@@ -62,27 +224,424 @@ public class S3StorageService {
     }
   }
 
-  public void delete(String folderPrefix) {
-    List<ObjectIdentifier> keysToDelete = new ArrayList<>();
+  /**
+   * Downloads the object with parallel ranged GETs into the buffer returned by the allocator. The
+   * allocator is called with the object size once the first part has answered and may return a
+   * preallocated buffer; the object is written from its position on and the returned slice covers
+   * exactly the object's bytes.
+   */
+  public ByteBuffer download(String key, LongFunction<ByteBuffer> allocator) throws IOException {
+    AtomicReference<ByteBuffer> target = new AtomicReference<>();
+    long size = rangedDownload(key, objectSize -> {
+      ByteBuffer buffer = allocator.apply(objectSize).slice();
+      if (buffer.remaining() < objectSize) {
+        throw new IllegalArgumentException(format(
+            "Buffer of %d bytes is too small for %s (%d bytes)", buffer.remaining(), key,
+            objectSize));
+      }
+      target.set(buffer);
+      return (part, offset, length) -> FileUtil.readFully(part,
+          buffer.slice(Math.toIntExact(offset), Math.toIntExact(length)));
+    });
+    return target.get().slice(0, Math.toIntExact(size));
+  }
+
+  /**
+   * Downloads the object with parallel ranged GETs into the file, starting at its beginning. Parts
+   * are written with positional writes as they arrive, nothing is buffered in the heap.
+   */
+  public long download(String key, FileChannel channel) throws IOException {
+    return rangedDownload(key, fileTarget(channel));
+  }
+
+  private static DownloadTarget fileTarget(FileChannel channel) {
+    return size -> {
+      if (size > 0) {
+        // parts can only be written at positions inside the file, so it is extended up front
+        channel.write(ByteBuffer.allocate(1), size - 1);
+      }
+      return (part, offset, length) -> FileUtil.transferFully(part, channel, offset, length);
+    };
+  }
 
-    s3.listObjectsV2Paginator(builder -> builder.bucket(bucketName.getShipmentPictureBucket()).prefix(folderPrefix + "/"))
-            .contents().stream()
-            .map(S3Object::key)
-            .forEach(key -> keysToDelete.add(ObjectIdentifier.builder().key(key).build()));
+  /*
+   * The first part is requested on the calling thread and its Content-Range tells the object size,
+   * which saves a HEAD request.
+   */
+  private long rangedDownload(String key, DownloadTarget target) throws IOException {
+    ResponseInputStream<GetObjectResponse> first;
+    try {
+      first = s3.getObject(rangeRequest(key, 0, partSize, null));
+    } catch (S3Exception e) {
+      if (e.statusCode() == 416) {
+        // no range can be satisfied by an empty object
+        target.open(0);
+        downloadSizes.record(0);
+        return 0;
+      }
+      throw e;
+    }
+    return downloadParts(key, first, target);
+  }
+
+  /*
+   * Writes the first part from the given response, a ranged one or the start of the whole object,
+   * which is aborted after the first part. The remaining parts are fetched on the transfer
+   * executor, at most transferConcurrency at a time, and pinned to the first response's ETag so a
+   * concurrent overwrite (the watermark Lambda rewrites images in place) fails the download
+   * instead of mixing versions. On failure the parts still running are waited for, nothing writes
+   * into the target once this method returns.
+   */
+  private long downloadParts(String key, ResponseInputStream<GetObjectResponse> first,
+      DownloadTarget target) throws IOException {
+    try (first) {
+      GetObjectResponse response = first.response();
+      long size = objectSize(response);
+      long firstLength = Math.min(response.contentLength(), partSize);
+      PartWriter writer = target.open(size);
+
+      Semaphore inFlight = new Semaphore(transferConcurrency);
+      List<CompletableFuture<Void>> parts = new ArrayList<>();
+      AtomicBoolean failed = new AtomicBoolean();
+      boolean firstWritten = false;
+      try {
+        for (long offset = firstLength; offset < size && !failed.get(); offset += partSize) {
+          // permits are taken here, so waiting parts do not hold threads of the shared pool; the
+          // first part is written while the first batch of parts runs
+          if (!inFlight.tryAcquire()) {
+            if (!firstWritten) {
+              writeFirstPart(first, firstLength, writer);
+              firstWritten = true;
+            }
+            inFlight.acquireUninterruptibly();
+          }
+          long partOffset = offset;
+          long length = Math.min(partSize, size - offset);
+          parts.add(CompletableFuture.runAsync(() -> downloadPart(key, response.eTag(),
+                  partOffset, length, writer, failed), transferExecutor)
+              .whenComplete((result, e) -> inFlight.release()));
+        }
+        if (!firstWritten) {
+          writeFirstPart(first, firstLength, writer);
+        }
+        parts.forEach(CompletableFuture::join);
+      } catch (IOException | RuntimeException e) {
+        failed.set(true);
+        awaitQuietly(parts);
+        if (e instanceof CompletionException && e.getCause() instanceof UncheckedIOException cause) {
+          throw cause.getCause();
+        }
+        if (e instanceof CompletionException && e.getCause() instanceof SdkException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+      downloadSizes.record(size);
+      return size;
+    }
+  }
+
+  private static void writeFirstPart(ResponseInputStream<GetObjectResponse> first,
+      long firstLength, PartWriter writer) throws IOException {
+    writer.write(first, 0, firstLength);
+    if (firstLength < first.response().contentLength()) {
+      // the rest of a whole object response is fetched in parts, not drained
+      first.abort();
+    }
+  }
+
+  private void downloadPart(String key, String eTag, long offset, long length, PartWriter writer,
+      AtomicBoolean failed) {
+    try {
+      if (failed.get()) {
+        return;
+      }
+      try (ResponseInputStream<GetObjectResponse> part = s3.getObject(
+          rangeRequest(key, offset, length, eTag))) {
+        writer.write(part, offset, length);
+      }
+    } catch (IOException e) {
+      failed.set(true);
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException e) {
+      failed.set(true);
+      throw e;
+    }
+  }
+
+  // CompletableFuture.cancel does not stop a task that is already running, so it is waited for
+  private static void awaitQuietly(List<? extends CompletableFuture<?>> tasks) {
+    CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+        .exceptionally(e -> null)
+        .join();
+  }
+
+  private GetObjectRequest rangeRequest(String key, long offset, long length, String ifMatch) {
+    return GetObjectRequest.builder()
+        .bucket(bucketName.getShipmentPictureBucket())
+        .key(key)
+        .range(format("bytes=%d-%d", offset, offset + length - 1))
+        .ifMatch(ifMatch)
+        .build();
+  }
 
-    DeleteObjectsRequest deleteRequest = DeleteObjectsRequest.builder()
+  private static long objectSize(GetObjectResponse response) {
+    String contentRange = response.contentRange();
+    // a server that ignores the range sends the whole object
+    if (contentRange == null) {
+      return response.contentLength();
+    }
+    return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1));
+  }
+
+  @FunctionalInterface
+  private interface DownloadTarget {
+
+    PartWriter open(long size) throws IOException;
+  }
+
+  @FunctionalInterface
+  private interface PartWriter {
+
+    void write(InputStream part, long offset, long length) throws IOException;
+  }
+
+  /**
+   * Opens the object as a stream. Range and conditional headers are passed on to S3, which reports
+   * 304, 412 and 416 outcomes as an {@link S3Exception} with that status code. A whole object at
+   * or above the multipart threshold is still streamed in order as it arrives: the first part is
+   * read straight from the response already open, while the following parts are fetched ahead with
+   * ranged GETs, at most transferConcurrency parts per stream held in memory. The caller owns the
+   * returned stream and has to close it.
+   */
+  public ResponseInputStream<GetObjectResponse> openStream(String key, String range,
+      String ifNoneMatch, Instant ifModifiedSince) throws IOException {
+    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
             .bucket(bucketName.getShipmentPictureBucket())
-            .delete(builder -> builder.objects(keysToDelete).build())
+            .key(key)
+            .range(range)
+            .ifNoneMatch(ifNoneMatch)
+            .ifModifiedSince(ifModifiedSince)
             .build();
 
+    ResponseInputStream<GetObjectResponse> object = s3.getObject(getObjectRequest);
+    Long contentLength = object.response().contentLength();
+    if (range == null && contentLength != null && contentLength >= multipartThreshold) {
+      downloadSizes.record(contentLength);
+      return new ResponseInputStream<>(object.response(),
+          AbortableInputStream.create(new PrefetchingPartStream(key, object)));
+    }
+    // counted when the body is handed out, a caller that stops reading early is not subtracted
+    if (contentLength != null) {
+      downloadSizes.record(contentLength);
+    }
+    return object;
+  }
+
+  /**
+   * The object in order, the first part from the whole object response and every later part from
+   * a ranged GET pinned to its ETag. Up to transferConcurrency parts are requested ahead of the
+   * reader, so the heap held per stream is bounded by that many parts; closing the stream aborts
+   * the response and drops the parts fetched ahead.
+   */
+  private final class PrefetchingPartStream extends InputStream {
+
+    private final String key;
+    private final String eTag;
+    private final long size;
+    private final ResponseInputStream<GetObjectResponse> first;
+    private final long firstLength;
+    private final Deque<CompletableFuture<byte[]>> ahead = new ArrayDeque<>();
+    private long nextOffset;
+    private InputStream current;
+    private boolean closed;
+
+    private PrefetchingPartStream(String key, ResponseInputStream<GetObjectResponse> first) {
+      this.key = key;
+      this.eTag = first.response().eTag();
+      this.size = first.response().contentLength();
+      this.first = first;
+      this.firstLength = Math.min(size, partSize);
+      this.nextOffset = firstLength;
+      this.current = new BoundedInputStream(first, firstLength);
+      fetchAhead();
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (closed) {
+        throw new IOException("Stream of " + key + " is closed");
+      }
+      if (length == 0) {
+        return 0;
+      }
+      while (true) {
+        int read = current.read(buffer, offset, length);
+        if (read >= 0) {
+          return read;
+        }
+        if (ahead.isEmpty()) {
+          return -1;
+        }
+        current = new ByteArrayInputStream(nextPart());
+        fetchAhead();
+      }
+    }
+
+    private byte[] nextPart() throws IOException {
+      if (current instanceof BoundedInputStream) {
+        // the rest of the whole object response is fetched in parts, not drained
+        first.abort();
+      }
+      try {
+        return ahead.removeFirst().join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof UncheckedIOException cause) {
+          throw cause.getCause();
+        }
+        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+    }
+
+    private void fetchAhead() {
+      while (ahead.size() < transferConcurrency && nextOffset < size) {
+        long offset = nextOffset;
+        int length = (int) Math.min(partSize, size - offset);
+        ahead.addLast(CompletableFuture.supplyAsync(() -> fetchPart(offset, length),
+            transferExecutor));
+        nextOffset += length;
+      }
+    }
+
+    private byte[] fetchPart(long offset, int length) {
+      byte[] part = new byte[length];
+      try (ResponseInputStream<GetObjectResponse> response = s3.getObject(
+          rangeRequest(key, offset, length, eTag))) {
+        FileUtil.readFully(response, ByteBuffer.wrap(part));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return part;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      // parts already running finish on their own, their bytes are simply not read
+      ahead.forEach(part -> part.cancel(false));
+      ahead.clear();
+      if (current instanceof BoundedInputStream) {
+        first.abort();
+      }
+      first.close();
+    }
+  }
+
+  /**
+   * Reads at most limit bytes of the stream, without closing it at the end.
+   */
+  private static final class BoundedInputStream extends InputStream {
+
+    private final InputStream in;
+    private long remaining;
+
+    private BoundedInputStream(InputStream in, long limit) {
+      this.in = in;
+      this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining == 0) {
+        return -1;
+      }
+      int read = in.read();
+      if (read >= 0) {
+        remaining--;
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (remaining == 0) {
+        return -1;
+      }
+      int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+      if (read > 0) {
+        remaining -= read;
+      }
+      return read;
+    }
+  }
+
+  public void delete(String folderPrefix) {
+    delete(List.of(folderPrefix));
+  }
+
+  /**
+   * Deletes every object under the given shipment folders. Listing pages are cut into
+   * DeleteObjects requests of up to 1000 keys as they arrive, and those requests run on the
+   * transfer executor, at most transferConcurrency at a time, while the listing continues.
+   */
+  public void delete(Collection<String> folderPrefixes) {
+    // every upload gets a fresh key, so deleted shipments are the only stale images to drop
+    imageCache.ifPresent(cache -> folderPrefixes.forEach(
+        folderPrefix -> cache.invalidatePrefix(folderPrefix + "/")));
+
+    Semaphore inFlight = new Semaphore(transferConcurrency);
+    List<CompletableFuture<Void>> deletes = new ArrayList<>();
+    List<ObjectIdentifier> chunk = new ArrayList<>(MAX_DELETE_KEYS);
     try {
-      DeleteObjectsResponse response = s3.deleteObjects(deleteRequest);
-      handleDeleteErrors(response.errors());
-    } catch (SdkException e) {
-      LOGGER.error("Error occurred during object deletion: {}", e.getMessage());
+      for (String folderPrefix : folderPrefixes) {
+        for (S3Object object : s3.listObjectsV2Paginator(builder -> builder
+                .bucket(bucketName.getShipmentPictureBucket())
+                .prefix(folderPrefix + "/"))
+            .contents()) {
+          chunk.add(ObjectIdentifier.builder().key(object.key()).build());
+          if (chunk.size() == MAX_DELETE_KEYS) {
+            deletes.add(deleteChunk(chunk, inFlight));
+            chunk = new ArrayList<>(MAX_DELETE_KEYS);
+          }
+        }
+      }
+      // nothing is sent for shipments without images
+      if (!chunk.isEmpty()) {
+        deletes.add(deleteChunk(chunk, inFlight));
+      }
+    } finally {
+      // a failed listing still lets the requests already sent finish
+      deletes.forEach(CompletableFuture::join);
     }
   }
 
+  private CompletableFuture<Void> deleteChunk(List<ObjectIdentifier> keys, Semaphore inFlight) {
+    // acquired here so the listing stops while the maximum number of requests is in flight
+    inFlight.acquireUninterruptibly();
+    return CompletableFuture.runAsync(() -> {
+      try {
+        DeleteObjectsResponse response = s3.deleteObjects(DeleteObjectsRequest.builder()
+            .bucket(bucketName.getShipmentPictureBucket())
+            .delete(builder -> builder.objects(keys).quiet(true))
+            .build());
+        handleDeleteErrors(response.errors());
+      } catch (SdkException e) {
+        LOGGER.error("Error occurred during object deletion: {}", e.getMessage());
+      } finally {
+        inFlight.release();
+      }
+    }, transferExecutor);
+  }
+
   private void handleDeleteErrors(List<S3Error> errors) {
     if (!errors.isEmpty()) {
       LOGGER.error("Errors occurred while deleting objects:");
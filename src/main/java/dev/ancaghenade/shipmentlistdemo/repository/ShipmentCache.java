@@ -0,0 +1,107 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded read-through cache for single shipment lookups. Entries are evicted by size and by age,
+ * the TTL bounds how long another node's writes can stay invisible to this one. Loads run outside
+ * of the cache's internal locks, so a DynamoDB read never pins a virtual thread to its carrier.
+ * Shipments are mutable, so the cache stores and hands out copies; a caller changing its shipment
+ * never changes what the next reader gets.
+ */
+@Component
+public class ShipmentCache {
+
+  private final AsyncCache<String, Shipment> loads;
+  private final Cache<String, Shipment> cache;
+
+  public ShipmentCache(@Value("${shipment.cache.max-size:10000}") long maxSize,
+      @Value("${shipment.cache.ttl:5m}") Duration ttl) {
+    this.loads = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .buildAsync();
+    this.cache = loads.synchronous();
+  }
+
+  public Shipment get(String shipmentId, Function<String, Shipment> loader) {
+    // only an empty future is installed under the map's lock, the caller that installed it loads
+    // the shipment afterwards and concurrent callers wait for the same future
+    CompletableFuture<Shipment> loading = new CompletableFuture<>();
+    CompletableFuture<Shipment> shipment = loads.get(shipmentId, (id, executor) -> loading);
+    if (shipment == loading) {
+      try {
+        loading.complete(loader.apply(shipmentId));
+      } catch (RuntimeException e) {
+        // a failed future is removed from the cache, the next caller loads again
+        loading.completeExceptionally(e);
+      }
+    }
+    try {
+      return copy(shipment.join());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  public Optional<Shipment> getIfPresent(String shipmentId) {
+    return Optional.ofNullable(cache.getIfPresent(shipmentId)).map(ShipmentCache::copy);
+  }
+
+  public void put(Shipment shipment) {
+    cache.put(shipment.getShipmentId(), copy(shipment));
+  }
+
+  public void invalidate(String shipmentId) {
+    cache.invalidate(shipmentId);
+  }
+
+  public Map<String, Long> stats() {
+    CacheStats stats = cache.stats();
+    return Map.of(
+        "size", cache.estimatedSize(),
+        "hits", stats.hitCount(),
+        "misses", stats.missCount(),
+        "evictions", stats.evictionCount());
+  }
+
+  // toBuilder() carries over every field, the participants are copied so they are not shared
+  private static Shipment copy(Shipment shipment) {
+    if (shipment == null) {
+      return null;
+    }
+    return shipment.toBuilder()
+        .recipient(copy(shipment.getRecipient()))
+        .sender(copy(shipment.getSender()))
+        .build();
+  }
+
+  private static Participant copy(Participant participant) {
+    if (participant == null) {
+      return null;
+    }
+    return participant.toBuilder().address(copy(participant.getAddress())).build();
+  }
+
+  private static Address copy(Address address) {
+    return address == null ? null : address.toBuilder().build();
+  }
+}
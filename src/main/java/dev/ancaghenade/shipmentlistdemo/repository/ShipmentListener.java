@@ -0,0 +1,18 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+
+/**
+ * Notified after shipments have been written or deleted through this instance, so in-memory views
+ * derived from them can be kept up to date without reading the table again. Called on the writing
+ * thread, implementations have to be quick and must not block.
+ */
+public interface ShipmentListener {
+
+  /**
+   * The shipment as it is now stored.
+   */
+  void onSaved(Shipment shipment);
+
+  void onDeleted(String shipmentId);
+}
@@ -0,0 +1,38 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notifies the {@link ShipmentListener}s of a write that has already succeeded. A listener that
+ * throws is logged and skipped, so it can neither fail the write nor keep the others from being
+ * notified, also when called on an event loop thread of the reactive stack.
+ */
+final class ShipmentListeners {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShipmentListeners.class);
+
+  private ShipmentListeners() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  static void notifySaved(List<ShipmentListener> listeners, Shipment shipment) {
+    listeners.forEach(listener -> notify(listener, () -> listener.onSaved(shipment)));
+  }
+
+  static void notifyDeleted(List<ShipmentListener> listeners, String shipmentId) {
+    listeners.forEach(listener -> notify(listener, () -> listener.onDeleted(shipmentId)));
+  }
+
+  private static void notify(ShipmentListener listener, Runnable notification) {
+    try {
+      notification.run();
+    } catch (RuntimeException e) {
+      // the write itself succeeded, a broken view must not turn it into an error
+      LOGGER.error("Shipment listener {} failed: {}", listener.getClass().getSimpleName(),
+          e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.ExpiredIteratorException;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListStreamsRequest;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.TrimmedDataAccessException;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+/**
+ * Keeps every shipment in local memory. The map is bootstrapped with a scan and then kept up to
+ * date by tailing the table's DynamoDB stream, so reads never leave the process. Shard iterators
+ * are taken before the scan, which means changes racing with the bootstrap are applied twice rather
+ * than lost. The replica only counts as fresh once the scan has been applied and every shard has
+ * been read to its end.
+ *
+ * <p>Every instance with the replica enabled reads every shard itself, without leases. DynamoDB
+ * Streams throttles more than two concurrent readers per shard, so enable it on at most two
+ * instances; the others read from DynamoDB. Spreading shards over more instances would need the
+ * Kinesis Client Library with the DynamoDB Streams adapter.
+ */
+@Component
+@ConditionalOnProperty(name = "shipment.replica.enabled", havingValue = "true")
+public class ShipmentReplica {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShipmentReplica.class);
+  private static final String KEY_ATTRIBUTE = "shipmentId";
+  // service maximum of GetRecords, a full page means the shard may hold more
+  private static final int MAX_RECORDS = 1000;
+
+  private final DynamoDbStreamsClient streamsClient;
+  private final DynamoDbTable<Shipment> shipmentTable;
+  private final DynamoDBService dynamoDBService;
+  private final Duration pollInterval;
+  private final Duration maxStaleness;
+  private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+      new CustomizableThreadFactory("shipment-replica-"));
+
+  private final Map<String, Shipment> shipments = new ConcurrentHashMap<>();
+  // only touched by the poller thread
+  private final Map<String, String> shardIterators = new HashMap<>();
+  private final Set<String> seenShards = new HashSet<>();
+  private String streamArn;
+  // set once the snapshot is in the map, until then the shard positions are of no use
+  private boolean bootstrapped;
+  private volatile Instant lastSync;
+
+  @Autowired
+  public ShipmentReplica(DynamoDbStreamsClient streamsClient,
+      DynamoDbTable<Shipment> shipmentTable, DynamoDBService dynamoDBService,
+      @Value("${shipment.replica.poll-interval:1s}") Duration pollInterval,
+      @Value("${shipment.replica.max-staleness:10s}") Duration maxStaleness) {
+    this.streamsClient = streamsClient;
+    this.shipmentTable = shipmentTable;
+    this.dynamoDBService = dynamoDBService;
+    this.pollInterval = pollInterval;
+    this.maxStaleness = maxStaleness;
+  }
+
+  @PostConstruct
+  public void start() {
+    poller.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    poller.shutdownNow();
+  }
+
+  /**
+   * The replica only answers while it has caught up with the stream recently enough, callers fall
+   * back to DynamoDB otherwise.
+   */
+  public boolean isFresh() {
+    Instant synced = lastSync;
+    return synced != null && Duration.between(synced, Instant.now()).compareTo(maxStaleness) <= 0;
+  }
+
+  public List<Shipment> getAllShipments() {
+    return List.copyOf(shipments.values());
+  }
+
+  private void poll() {
+    try {
+      if (!bootstrapped) {
+        bootstrap();
+      }
+      refreshShards(ShardIteratorType.TRIM_HORIZON);
+      if (readShards()) {
+        lastSync = Instant.now();
+      }
+    } catch (ExpiredIteratorException | TrimmedDataAccessException e) {
+      LOGGER.warn("Shipment replica fell behind the stream, rebuilding it: {}", e.getMessage());
+      bootstrapped = false;
+    } catch (RuntimeException e) {
+      // keep polling, the replica goes stale and readers fall back to DynamoDB until a new
+      // bootstrap, the map cannot be trusted to match the shard positions any more
+      LOGGER.error("Failed to poll the shipment stream, rebuilding it: {}", e.getMessage(), e);
+      bootstrapped = false;
+    }
+  }
+
+  private void bootstrap() {
+    shardIterators.clear();
+    seenShards.clear();
+    streamArn = streamsClient.listStreams(ListStreamsRequest.builder()
+            .tableName(shipmentTable.tableName())
+            .build())
+        .streams().stream()
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException(
+            "No stream is enabled on table " + shipmentTable.tableName()))
+        .streamArn();
+
+    // position on the open shards first, then scan, so nothing written in between is missed
+    refreshShards(ShardIteratorType.LATEST);
+    Map<String, Shipment> snapshot = new HashMap<>();
+    dynamoDBService.getAllShipments()
+        .forEach(shipment -> snapshot.put(shipment.getShipmentId(), shipment));
+    shipments.keySet().retainAll(snapshot.keySet());
+    shipments.putAll(snapshot);
+    bootstrapped = true;
+    LOGGER.info("Shipment replica bootstrapped with {} items from {}", snapshot.size(), streamArn);
+  }
+
+  private void refreshShards(ShardIteratorType newShardPosition) {
+    String exclusiveStartShardId = null;
+    do {
+      var description = streamsClient.describeStream(DescribeStreamRequest.builder()
+          .streamArn(streamArn)
+          .exclusiveStartShardId(exclusiveStartShardId)
+          .build()).streamDescription();
+      description.shards().forEach(shard -> startShard(shard, newShardPosition));
+      exclusiveStartShardId = description.lastEvaluatedShardId();
+    } while (exclusiveStartShardId != null);
+  }
+
+  private void startShard(Shard shard, ShardIteratorType position) {
+    if (seenShards.contains(shard.shardId())) {
+      return;
+    }
+    boolean closed = shard.sequenceNumberRange().endingSequenceNumber() != null;
+    if (position == ShardIteratorType.LATEST && closed) {
+      // closed before the bootstrap, everything in it is already part of the scan
+      seenShards.add(shard.shardId());
+      return;
+    }
+    if (shardIterators.containsKey(shard.parentShardId())) {
+      // children are read only once their parent is drained, to keep per-item order
+      return;
+    }
+    shardIterators.put(shard.shardId(), streamsClient.getShardIterator(
+        GetShardIteratorRequest.builder()
+            .streamArn(streamArn)
+            .shardId(shard.shardId())
+            .shardIteratorType(position)
+            .build()).shardIterator());
+    seenShards.add(shard.shardId());
+  }
+
+  /**
+   * Reads one page per shard, true when no shard returned a full page, i.e. the replica has caught
+   * up with the stream.
+   */
+  private boolean readShards() {
+    boolean caughtUp = true;
+    for (String shardId : new ArrayList<>(shardIterators.keySet())) {
+      GetRecordsResponse response = streamsClient.getRecords(GetRecordsRequest.builder()
+          .shardIterator(shardIterators.get(shardId))
+          .limit(MAX_RECORDS)
+          .build());
+      response.records().forEach(this::apply);
+      caughtUp &= response.records().size() < MAX_RECORDS;
+      if (response.nextShardIterator() == null) {
+        shardIterators.remove(shardId);
+      } else {
+        shardIterators.put(shardId, response.nextShardIterator());
+      }
+    }
+    return caughtUp;
+  }
+
+  private void apply(Record record) {
+    Map<String, AttributeValue> keys = record.dynamodb().keys();
+    String shipmentId = keys.get(KEY_ATTRIBUTE).s();
+    if (record.eventName() == OperationType.REMOVE) {
+      shipments.remove(shipmentId);
+    } else if (record.dynamodb().hasNewImage()) {
+      shipments.put(shipmentId, shipmentTable.tableSchema().mapToItem(record.dynamodb().newImage()));
+    }
+  }
+}
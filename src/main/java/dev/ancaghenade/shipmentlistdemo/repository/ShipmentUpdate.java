@@ -0,0 +1,147 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Builds one UpdateItem request that sets or removes individual attributes of a shipment, nested
+ * participant and address attributes included, and increments its version in the same write. With
+ * an expected version the write is conditional, so concurrent writers detect each other without
+ * reading the item first.
+ */
+final class ShipmentUpdate {
+
+  static final String KEY_ATTRIBUTE = "shipmentId";
+  static final String VERSION_ATTRIBUTE = "version";
+  // flattened index keys and the document paths they are copied from
+  static final Map<String, String> INDEX_KEY_SOURCES = Map.of(
+      "recipientCity", "recipient.address.city",
+      "recipientPostalCode", "recipient.address.postalCode",
+      "senderCity", "sender.address.city",
+      "senderPostalCode", "sender.address.postalCode");
+
+  private final String shipmentId;
+  // attribute name to placeholder, names are always substituted to avoid reserved words
+  private final Map<String, String> names = new LinkedHashMap<>();
+  private final Map<String, AttributeValue> values = new HashMap<>();
+  private final List<String> setActions = new ArrayList<>();
+  private final List<String> removeActions = new ArrayList<>();
+  private Long expectedVersion;
+  private boolean requireExisting;
+
+  ShipmentUpdate(String shipmentId) {
+    this.shipmentId = shipmentId;
+  }
+
+  /**
+   * Replaces every attribute except the key and the version, like writing the whole item, but
+   * still increments the version and checks it when the shipment carries one.
+   */
+  static ShipmentUpdate replacing(TableSchema<Shipment> schema, Shipment shipment) {
+    ShipmentUpdate update = new ShipmentUpdate(shipment.getShipmentId());
+    Map<String, AttributeValue> item = schema.itemToMap(shipment, true);
+    schema.attributeNames().stream()
+        .filter(name -> !name.equals(KEY_ATTRIBUTE) && !name.equals(VERSION_ATTRIBUTE))
+        .forEach(name -> update.set(name, item.get(name)));
+    return update.expectVersion(shipment.getVersion());
+  }
+
+  /**
+   * Sets the attribute at a document path like recipient.address.city; a null value removes it.
+   * The maps along the path have to exist already.
+   */
+  ShipmentUpdate set(String path, AttributeValue value) {
+    String target = Arrays.stream(path.split("\\."))
+        .map(this::name)
+        .collect(Collectors.joining("."));
+    if (value == null || Boolean.TRUE.equals(value.nul())) {
+      removeActions.add(target);
+    } else {
+      String placeholder = ":v" + values.size();
+      values.put(placeholder, value);
+      setActions.add(target + " = " + placeholder);
+    }
+    return this;
+  }
+
+  /**
+   * Only applies the update while the stored version matches, null means any version.
+   */
+  ShipmentUpdate expectVersion(Long version) {
+    this.expectedVersion = version;
+    return this;
+  }
+
+  /**
+   * Only applies the update to an existing shipment instead of creating it.
+   */
+  ShipmentUpdate requireExisting() {
+    this.requireExisting = true;
+    return this;
+  }
+
+  UpdateItemRequest toRequest(String tableName) {
+    Update update = toUpdate(tableName);
+    return UpdateItemRequest.builder()
+        .tableName(update.tableName())
+        .key(update.key())
+        .updateExpression(update.updateExpression())
+        .conditionExpression(update.conditionExpression())
+        .expressionAttributeNames(update.expressionAttributeNames())
+        .expressionAttributeValues(update.expressionAttributeValues())
+        .returnValues(ReturnValue.ALL_NEW)
+        // tells a missing item apart from a version conflict without another read
+        .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+        .build();
+  }
+
+  /**
+   * The same update as an action of a TransactWriteItems request.
+   */
+  Update toUpdate(String tableName) {
+    String version = name(VERSION_ATTRIBUTE);
+    Map<String, AttributeValue> expressionValues = new HashMap<>(values);
+    expressionValues.put(":zero", AttributeValue.fromN("0"));
+    expressionValues.put(":one", AttributeValue.fromN("1"));
+
+    List<String> set = new ArrayList<>(setActions);
+    set.add(version + " = if_not_exists(" + version + ", :zero) + :one");
+    String updateExpression = "SET " + String.join(", ", set)
+        + (removeActions.isEmpty() ? "" : " REMOVE " + String.join(", ", removeActions));
+
+    List<String> conditions = new ArrayList<>();
+    if (requireExisting) {
+      conditions.add("attribute_exists(" + name(KEY_ATTRIBUTE) + ")");
+    }
+    if (expectedVersion != null) {
+      conditions.add(version + " = :expectedVersion");
+      expressionValues.put(":expectedVersion", AttributeValue.fromN(expectedVersion.toString()));
+    }
+
+    return Update.builder()
+        .tableName(tableName)
+        .key(Map.of(KEY_ATTRIBUTE, AttributeValue.fromS(shipmentId)))
+        .updateExpression(updateExpression)
+        .conditionExpression(conditions.isEmpty() ? null : String.join(" AND ", conditions))
+        .expressionAttributeNames(names.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey)))
+        .expressionAttributeValues(expressionValues)
+        .build();
+  }
+
+  private String name(String attribute) {
+    return names.computeIfAbsent(attribute, name -> "#a" + names.size());
+  }
+}
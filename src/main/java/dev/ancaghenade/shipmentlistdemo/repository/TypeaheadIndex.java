@@ -0,0 +1,209 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.Suggestion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+/**
+ * Prefix index over participant names and address fields for autocompletion. Every value is stored
+ * once per word it contains, keyed by the normalized text from that word on, in a sorted map; a
+ * lookup is a range read of the keys starting with the normalized query, so "pot" and "harry pot"
+ * both find "Harry Potter". The index is built from a scan at startup and then updated with every
+ * write of this instance.
+ */
+@Component
+@ConditionalOnProperty(name = "shipment.typeahead.enabled", havingValue = "true")
+public class TypeaheadIndex implements ShipmentListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TypeaheadIndex.class);
+  private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  // sorts before any character, so a key's text is never mistaken for a longer word
+  private static final char SEPARATOR = '\u0000';
+
+  private record Term(String field, String value) {
+
+  }
+
+  private final DynamoDbTable<Shipment> shipmentTable;
+  private final ExecutorService bootstrapExecutor;
+  // "<normalized text from a word on>\0<field>\0<value>" to the number of shipments with the value
+  private final ConcurrentSkipListMap<String, Integer> entries = new ConcurrentSkipListMap<>();
+  // what each shipment contributed, to take it back out when the shipment changes
+  private final Map<String, Set<Term>> termsByShipment = new ConcurrentHashMap<>();
+  // deleted while the bootstrap scan runs, so the scan does not bring them back
+  private final Set<String> deletedDuringBootstrap = ConcurrentHashMap.newKeySet();
+  private volatile boolean bootstrapping;
+
+  @Autowired
+  public TypeaheadIndex(DynamoDbTable<Shipment> shipmentTable, TaskExecutors taskExecutors) {
+    this.shipmentTable = shipmentTable;
+    this.bootstrapExecutor = taskExecutors.newExecutor("shipment-typeahead-", 1);
+  }
+
+  @PostConstruct
+  public void start() {
+    bootstrapping = true;
+    bootstrapExecutor.execute(this::bootstrap);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    bootstrapExecutor.shutdownNow();
+  }
+
+  /**
+   * Returns up to limit distinct values containing a word that starts with the query, ignoring
+   * case, accents and punctuation.
+   */
+  public List<Suggestion> suggest(String query, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Suggestion limit must be positive, was " + limit);
+    }
+    String prefix = normalize(query);
+    if (prefix.isEmpty()) {
+      return List.of();
+    }
+    Map<Term, Integer> matches = new LinkedHashMap<>();
+    for (Map.Entry<String, Integer> entry
+        : entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+      String[] key = entry.getKey().split(String.valueOf(SEPARATOR), 3);
+      matches.putIfAbsent(new Term(key[1], key[2]), entry.getValue());
+      if (matches.size() == limit) {
+        break;
+      }
+    }
+    List<Suggestion> suggestions = new ArrayList<>(matches.size());
+    matches.forEach((term, count) -> suggestions.add(new Suggestion(term.value(), term.field(),
+        count)));
+    return suggestions;
+  }
+
+  public int size() {
+    return termsByShipment.size();
+  }
+
+  @Override
+  public void onSaved(Shipment shipment) {
+    Set<Term> terms = terms(shipment);
+    // the bin lock of the shipment orders concurrent updates of the same shipment
+    termsByShipment.compute(shipment.getShipmentId(), (id, previous) -> {
+      if (previous != null) {
+        previous.stream().filter(term -> !terms.contains(term)).forEach(this::remove);
+      }
+      terms.stream().filter(term -> previous == null || !previous.contains(term))
+          .forEach(this::add);
+      return terms;
+    });
+  }
+
+  @Override
+  public void onDeleted(String shipmentId) {
+    if (bootstrapping) {
+      deletedDuringBootstrap.add(shipmentId);
+    }
+    termsByShipment.computeIfPresent(shipmentId, (id, previous) -> {
+      previous.forEach(this::remove);
+      return null;
+    });
+  }
+
+  private void bootstrap() {
+    long indexed = 0;
+    try {
+      for (Shipment shipment : shipmentTable.scan().items()) {
+        String shipmentId = shipment.getShipmentId();
+        // shipments written since the start are already indexed with newer values
+        if (!deletedDuringBootstrap.contains(shipmentId)
+            && !termsByShipment.containsKey(shipmentId)) {
+          termsByShipment.computeIfAbsent(shipmentId, id -> {
+            Set<Term> terms = terms(shipment);
+            terms.forEach(this::add);
+            return terms;
+          });
+          indexed++;
+        }
+      }
+      LOGGER.info("Typeahead index bootstrapped with {} shipments", indexed);
+    } catch (RuntimeException e) {
+      // writes keep updating the index, it only misses the shipments that were not scanned
+      LOGGER.error("Failed to bootstrap the typeahead index after {} shipments: {}", indexed,
+          e.getMessage(), e);
+    } finally {
+      bootstrapping = false;
+      deletedDuringBootstrap.clear();
+    }
+  }
+
+  private void add(Term term) {
+    keys(term).forEach(key -> entries.merge(key, 1, Integer::sum));
+  }
+
+  private void remove(Term term) {
+    keys(term).forEach(key -> entries.computeIfPresent(key, (k, count) -> count > 1
+        ? count - 1 : null));
+  }
+
+  private static List<String> keys(Term term) {
+    String[] words = normalize(term.value()).split(" ");
+    List<String> keys = new ArrayList<>(words.length);
+    for (int i = 0; i < words.length; i++) {
+      keys.add(String.join(" ", List.of(words).subList(i, words.length))
+          + SEPARATOR + term.field() + SEPARATOR + term.value());
+    }
+    return keys;
+  }
+
+  private static Set<Term> terms(Shipment shipment) {
+    Set<Term> terms = new HashSet<>();
+    for (Participant participant : new Participant[]{shipment.getRecipient(),
+        shipment.getSender()}) {
+      if (participant == null) {
+        continue;
+      }
+      addTerm(terms, "name", participant.getName());
+      Address address = participant.getAddress();
+      if (address != null) {
+        addTerm(terms, "street", address.getStreet());
+        addTerm(terms, "city", address.getCity());
+        addTerm(terms, "postalCode", address.getPostalCode());
+      }
+    }
+    return terms;
+  }
+
+  private static void addTerm(Set<Term> terms, String field, String value) {
+    if (value != null && !normalize(value).isEmpty()) {
+      terms.add(new Term(field, value.trim()));
+    }
+  }
+
+  private static String normalize(String text) {
+    String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+        .replaceAll("")
+        .toLowerCase(Locale.ROOT);
+    return WORD_SEPARATOR.matcher(folded).replaceAll(" ").trim();
+  }
+}
@@ -0,0 +1,292 @@
+package dev.ancaghenade.shipmentlistdemo.repository;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.WeightStats;
+import dev.ancaghenade.shipmentlistdemo.entity.WeightStats.Bucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+/**
+ * Running weight statistics per recipient and per sender city: count, total, min, max and a
+ * histogram over fixed bucket bounds, kept in primitive arrays indexed by a slot per city. The
+ * numbers are built from a scan at startup and then adjusted by every write of this instance, so
+ * reading them costs an array copy instead of a table scan. Min and max come from a sorted count
+ * of the weights per city, so removing the shipment that held one costs a tree update instead of
+ * a pass over every shipment.
+ */
+@Component
+@ConditionalOnProperty(name = "shipment.stats.enabled", havingValue = "true")
+public class WeightStatistics implements ShipmentListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WeightStatistics.class);
+  private static final int NO_SLOT = -1;
+
+  // what a shipment added, to take it back out when the shipment changes
+  private record Contribution(double weight, int recipientSlot, int senderSlot) {
+
+  }
+
+  private final DynamoDbTable<Shipment> shipmentTable;
+  private final ExecutorService bootstrapExecutor;
+  private final double[] bucketBounds;
+  private final ReentrantLock lock = new ReentrantLock();
+  // guarded by lock
+  private final CityTable recipients;
+  private final CityTable senders;
+  private final Map<String, Contribution> contributions = new HashMap<>();
+  private final Set<String> deletedDuringBootstrap = new HashSet<>();
+  private boolean bootstrapping;
+
+  @Autowired
+  public WeightStatistics(DynamoDbTable<Shipment> shipmentTable, TaskExecutors taskExecutors,
+      @Value("${shipment.stats.bucket-bounds:1,2,5,10,20,50}") double[] bucketBounds) {
+    this.shipmentTable = shipmentTable;
+    this.bootstrapExecutor = taskExecutors.newExecutor("shipment-stats-", 1);
+    this.bucketBounds = bucketBounds.clone();
+    Arrays.sort(this.bucketBounds);
+    this.recipients = new CityTable(this.bucketBounds.length + 1);
+    this.senders = new CityTable(this.bucketBounds.length + 1);
+  }
+
+  @PostConstruct
+  public void start() {
+    lock.lock();
+    try {
+      bootstrapping = true;
+    } finally {
+      lock.unlock();
+    }
+    bootstrapExecutor.execute(this::bootstrap);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    bootstrapExecutor.shutdownNow();
+  }
+
+  /**
+   * Statistics of the shipments sent to (recipient) or from (sender) each city, or only the given
+   * city if it is not null.
+   */
+  public List<WeightStats> stats(String participant, String city) {
+    CityTable table = switch (participant) {
+      case "recipient" -> recipients;
+      case "sender" -> senders;
+      default -> throw new IllegalArgumentException(
+          "Participant must be recipient or sender, was " + participant);
+    };
+    lock.lock();
+    try {
+      if (city != null) {
+        Integer slot = table.slots.get(city);
+        return slot == null ? List.of() : List.of(table.stats(slot, participant));
+      }
+      List<WeightStats> stats = new ArrayList<>(table.size);
+      for (int slot = 0; slot < table.size; slot++) {
+        if (table.counts[slot] > 0) {
+          stats.add(table.stats(slot, participant));
+        }
+      }
+      return stats;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void onSaved(Shipment shipment) {
+    lock.lock();
+    try {
+      apply(shipment.getShipmentId(), shipment);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void onDeleted(String shipmentId) {
+    lock.lock();
+    try {
+      if (bootstrapping) {
+        deletedDuringBootstrap.add(shipmentId);
+      }
+      apply(shipmentId, null);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void bootstrap() {
+    long counted = 0;
+    try {
+      for (Shipment shipment : shipmentTable.scan().items()) {
+        lock.lock();
+        try {
+          // shipments written since the start are already counted with newer values
+          String shipmentId = shipment.getShipmentId();
+          if (!deletedDuringBootstrap.contains(shipmentId)
+              && !contributions.containsKey(shipmentId)) {
+            apply(shipmentId, shipment);
+            counted++;
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+      LOGGER.info("Weight statistics bootstrapped with {} shipments", counted);
+    } catch (RuntimeException e) {
+      // writes keep updating the statistics, they only miss the shipments that were not scanned
+      LOGGER.error("Failed to bootstrap the weight statistics after {} shipments: {}", counted,
+          e.getMessage(), e);
+    } finally {
+      lock.lock();
+      try {
+        bootstrapping = false;
+        deletedDuringBootstrap.clear();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Replaces what the shipment contributed so far with its new values, null removes it.
+   */
+  private void apply(String shipmentId, Shipment shipment) {
+    Contribution current = shipment == null || shipment.getWeight() == null ? null
+        : new Contribution(shipment.getWeight(), recipients.slot(city(shipment.getRecipient())),
+            senders.slot(city(shipment.getSender())));
+    Contribution previous = current == null ? contributions.remove(shipmentId)
+        : contributions.put(shipmentId, current);
+    if (current != null && current.equals(previous)) {
+      // e.g. an image link update, taking the weight out could needlessly invalidate min or max
+      return;
+    }
+    if (previous != null) {
+      recipients.remove(previous.recipientSlot(), previous.weight(), bucket(previous.weight()));
+      senders.remove(previous.senderSlot(), previous.weight(), bucket(previous.weight()));
+    }
+    if (current != null) {
+      recipients.add(current.recipientSlot(), current.weight(), bucket(current.weight()));
+      senders.add(current.senderSlot(), current.weight(), bucket(current.weight()));
+    }
+  }
+
+  private int bucket(double weight) {
+    int position = Arrays.binarySearch(bucketBounds, weight);
+    // a weight equal to a bound belongs to the bucket starting there
+    return position >= 0 ? position + 1 : -position - 1;
+  }
+
+  private static String city(Participant participant) {
+    return participant == null || participant.getAddress() == null
+        ? null : participant.getAddress().getCity();
+  }
+
+  /**
+   * Column arrays with one slot per city, grown by doubling. Slots are never reused, a city
+   * without shipments keeps its slot with a count of zero.
+   */
+  private final class CityTable {
+
+    private final int buckets;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] cities = new String[16];
+    private long[] counts = new long[16];
+    private double[] totals = new double[16];
+    // weight to the number of shipments with it, per slot
+    private final List<NavigableMap<Double, Integer>> weights = new ArrayList<>();
+    // buckets per city, laid out city after city
+    private long[] histogram;
+    private int size;
+
+    private CityTable(int buckets) {
+      this.buckets = buckets;
+      this.histogram = new long[16 * buckets];
+    }
+
+    private int slot(String city) {
+      if (city == null) {
+        return NO_SLOT;
+      }
+      return slots.computeIfAbsent(city, name -> {
+        if (size == cities.length) {
+          grow();
+        }
+        cities[size] = name;
+        weights.add(new TreeMap<>());
+        return size++;
+      });
+    }
+
+    private void add(int slot, double weight, int bucket) {
+      if (slot == NO_SLOT) {
+        return;
+      }
+      counts[slot]++;
+      totals[slot] += weight;
+      weights.get(slot).merge(weight, 1, Integer::sum);
+      histogram[slot * buckets + bucket]++;
+    }
+
+    private void remove(int slot, double weight, int bucket) {
+      if (slot == NO_SLOT) {
+        return;
+      }
+      counts[slot]--;
+      totals[slot] -= weight;
+      weights.get(slot).computeIfPresent(weight, (w, count) -> count == 1 ? null : count - 1);
+      histogram[slot * buckets + bucket]--;
+    }
+
+    private WeightStats stats(int slot, String participant) {
+      List<Bucket> histogramBuckets = new ArrayList<>(buckets);
+      for (int bucket = 0; bucket < buckets; bucket++) {
+        histogramBuckets.add(new Bucket(
+            bucket == 0 ? null : bucketBounds[bucket - 1],
+            bucket == bucketBounds.length ? null : bucketBounds[bucket],
+            histogram[slot * buckets + bucket]));
+      }
+      long count = counts[slot];
+      NavigableMap<Double, Integer> slotWeights = weights.get(slot);
+      return WeightStats.builder()
+          .participant(participant)
+          .city(cities[slot])
+          .count(count)
+          .total(count == 0 ? 0 : totals[slot])
+          .mean(count == 0 ? null : totals[slot] / count)
+          .min(count == 0 ? null : slotWeights.firstKey())
+          .max(count == 0 ? null : slotWeights.lastKey())
+          .histogram(histogramBuckets)
+          .build();
+    }
+
+    private void grow() {
+      int capacity = cities.length * 2;
+      cities = Arrays.copyOf(cities, capacity);
+      counts = Arrays.copyOf(counts, capacity);
+      totals = Arrays.copyOf(totals, capacity);
+      histogram = Arrays.copyOf(histogram, capacity * buckets);
+    }
+  }
+}
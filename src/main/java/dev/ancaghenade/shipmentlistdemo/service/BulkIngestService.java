@@ -0,0 +1,185 @@
+package dev.ancaghenade.shipmentlistdemo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.entity.BulkIngestResult;
+import dev.ancaghenade.shipmentlistdemo.entity.BulkIngestResult.ItemFailure;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.repository.DynamoDBService;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads shipments one by one from an NDJSON stream or a JSON array and stores them with
+ * transactions of 25, which run in parallel while the body is still being read. At most
+ * shipment.ingest.concurrency batches are in flight; reading pauses until one finishes, so memory
+ * use does not grow with the size of the body. A shipment is never in two batches in flight at
+ * once, so when the body repeats a shipment id the later item is the one stored. A version in the
+ * body is ignored, every stored shipment gets the next version of the one it replaces.
+ */
+@Service
+public class BulkIngestService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkIngestService.class);
+  // one TransactWriteItems request per batch, see DynamoDBService#putAll
+  private static final int BATCH_SIZE = 25;
+  private static final int MAX_REPORTED_FAILURES = 1000;
+
+  private record IndexedShipment(long index, Shipment shipment) {
+
+  }
+
+  private final DynamoDBService dynamoDBService;
+  private final ObjectReader shipmentReader;
+  private final int concurrency;
+  private final ExecutorService ingestExecutor;
+
+  @Autowired
+  public BulkIngestService(DynamoDBService dynamoDBService, ObjectMapper objectMapper,
+      TaskExecutors taskExecutors,
+      @Value("${shipment.ingest.concurrency:4}") int concurrency) {
+    this.dynamoDBService = dynamoDBService;
+    this.shipmentReader = objectMapper.readerFor(Shipment.class);
+    this.concurrency = concurrency;
+    this.ingestExecutor = taskExecutors.newExecutor("shipment-ingest-", concurrency);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ingestExecutor.shutdownNow();
+  }
+
+  public BulkIngestResult ingest(InputStream body) throws IOException {
+    Semaphore inFlight = new Semaphore(concurrency);
+    List<CompletableFuture<List<ItemFailure>>> batches = new ArrayList<>();
+    List<ItemFailure> failures = new ArrayList<>();
+    List<IndexedShipment> batch = new ArrayList<>(BATCH_SIZE);
+    Set<String> batchIds = new HashSet<>();
+    // the batch each shipment id was last submitted with, while that batch is in flight
+    Map<String, CompletableFuture<List<ItemFailure>>> pending = new ConcurrentHashMap<>();
+    long received = 0;
+
+    // a top level array is unwrapped, otherwise the body is read as a sequence of root values
+    try (MappingIterator<Shipment> items = shipmentReader.readValues(body)) {
+      while (true) {
+        long index = received;
+        Shipment shipment;
+        try {
+          if (!items.hasNextValue()) {
+            break;
+          }
+          received++;
+          shipment = items.nextValue();
+        } catch (JsonMappingException e) {
+          // not a valid shipment, the iterator skips it and carries on with the next one
+          received = index + 1;
+          failures.add(new ItemFailure(index, null, e.getOriginalMessage()));
+          continue;
+        } catch (JsonProcessingException e) {
+          // broken JSON, nothing after this point can be read
+          received = index + 1;
+          failures.add(new ItemFailure(index, null, "Malformed input: " + e.getOriginalMessage()));
+          break;
+        }
+
+        if (shipment.getShipmentId() == null || shipment.getShipmentId().isBlank()) {
+          failures.add(new ItemFailure(index, null, "shipmentId is required"));
+          continue;
+        }
+        // the version is set by the table, not by the client
+        shipment.setVersion(null);
+        // one transaction must not contain the same key twice
+        if (!batchIds.add(shipment.getShipmentId())) {
+          batches.add(submit(batch, inFlight, pending));
+          batch = new ArrayList<>(BATCH_SIZE);
+          batchIds.clear();
+          batchIds.add(shipment.getShipmentId());
+        }
+        batch.add(new IndexedShipment(index, shipment));
+        if (batch.size() == BATCH_SIZE) {
+          batches.add(submit(batch, inFlight, pending));
+          batch = new ArrayList<>(BATCH_SIZE);
+          batchIds.clear();
+        }
+      }
+    } finally {
+      if (!batch.isEmpty()) {
+        batches.add(submit(batch, inFlight, pending));
+      }
+      batches.forEach(future -> failures.addAll(future.join()));
+    }
+
+    failures.sort(Comparator.comparingLong(ItemFailure::getIndex));
+    LOGGER.info("Bulk ingest of {} shipments finished with {} failures", received,
+        failures.size());
+    return BulkIngestResult.builder()
+        .received(received)
+        .written(received - failures.size())
+        .failed(failures.size())
+        .failures(List.copyOf(failures.subList(0, Math.min(failures.size(),
+            MAX_REPORTED_FAILURES))))
+        .build();
+  }
+
+  private CompletableFuture<List<ItemFailure>> submit(List<IndexedShipment> batch,
+      Semaphore inFlight, Map<String, CompletableFuture<List<ItemFailure>>> pending) {
+    // an earlier item of the same shipment has to be stored first, the reader waits for it
+    batch.forEach(item -> {
+      CompletableFuture<List<ItemFailure>> earlier = pending.get(item.shipment().getShipmentId());
+      if (earlier != null) {
+        earlier.join();
+      }
+    });
+    // blocks the reader while the maximum number of batches is in flight
+    inFlight.acquireUninterruptibly();
+    CompletableFuture<List<ItemFailure>> future = CompletableFuture
+        .supplyAsync(() -> write(batch), ingestExecutor)
+        .whenComplete((result, e) -> inFlight.release());
+    batch.forEach(item -> pending.put(item.shipment().getShipmentId(), future));
+    // registered after the puts, so it also removes them when the batch is already done
+    future.whenComplete((result, e) -> batch.forEach(
+        item -> pending.remove(item.shipment().getShipmentId(), future)));
+    return future;
+  }
+
+  private List<ItemFailure> write(List<IndexedShipment> batch) {
+    Map<String, IndexedShipment> byId = batch.stream().collect(Collectors.toMap(
+        item -> item.shipment().getShipmentId(), Function.identity()));
+    try {
+      return dynamoDBService.putAll(batch.stream().map(IndexedShipment::shipment).toList())
+          .entrySet().stream()
+          .map(failed -> failure(byId.get(failed.getKey()), failed.getValue()))
+          .toList();
+    } catch (RuntimeException e) {
+      // reported per item, the summary covers every batch whatever went wrong in one
+      LOGGER.warn("Bulk ingest batch of {} shipments failed: {}", batch.size(), e.getMessage());
+      return batch.stream().map(item -> failure(item, e.getMessage())).toList();
+    }
+  }
+
+  private static ItemFailure failure(IndexedShipment item, String reason) {
+    return new ItemFailure(item.index(), item.shipment().getShipmentId(), reason);
+  }
+}
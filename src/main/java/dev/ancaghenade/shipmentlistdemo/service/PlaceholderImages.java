@@ -0,0 +1,81 @@
+package dev.ancaghenade.shipmentlistdemo.service;
+
+import dev.ancaghenade.shipmentlistdemo.repository.ImageCache.CachedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Placeholder images shown for shipments without a picture. They are read from the classpath once
+ * at startup and kept in read-only buffers, so serving one neither touches the file system nor
+ * copies the bytes. Extra placeholders can be mapped per content type under
+ * {@code shipment.placeholder.images}, the JPEG one is always available.
+ */
+@Component
+public class PlaceholderImages {
+
+  private static final String DEFAULT_LOCATION = "classpath:placeholder.jpg";
+
+  private final Map<MediaType, CachedImage> placeholders = new LinkedHashMap<>();
+  private final CachedImage defaultPlaceholder;
+
+  @Autowired
+  public PlaceholderImages(ResourceLoader resourceLoader, Environment environment)
+      throws IOException {
+    Instant loadedAt = Instant.now();
+    this.defaultPlaceholder = load(resourceLoader, MediaType.IMAGE_JPEG, DEFAULT_LOCATION,
+        loadedAt);
+    placeholders.put(MediaType.IMAGE_JPEG, defaultPlaceholder);
+
+    Map<String, String> configured = Binder.get(environment)
+        .bind("shipment.placeholder.images", Bindable.mapOf(String.class, String.class))
+        .orElse(Map.of());
+    for (Map.Entry<String, String> entry : configured.entrySet()) {
+      MediaType contentType = MediaType.parseMediaType(entry.getKey());
+      placeholders.put(contentType, load(resourceLoader, contentType, entry.getValue(), loadedAt));
+    }
+  }
+
+  /**
+   * Picks the placeholder that best matches the client's Accept header, falling back to JPEG.
+   */
+  public CachedImage select(List<MediaType> accepted) {
+    List<MediaType> sorted = new ArrayList<>(accepted);
+    sorted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+    for (MediaType acceptedType : sorted) {
+      for (Map.Entry<MediaType, CachedImage> placeholder : placeholders.entrySet()) {
+        if (acceptedType.includes(placeholder.getKey())) {
+          return placeholder.getValue();
+        }
+      }
+    }
+    return defaultPlaceholder;
+  }
+
+  private static CachedImage load(ResourceLoader resourceLoader, MediaType contentType,
+      String location, Instant loadedAt) throws IOException {
+    Resource resource = resourceLoader.getResource(location);
+    byte[] bytes;
+    try (InputStream inputStream = resource.getInputStream()) {
+      bytes = inputStream.readAllBytes();
+    }
+    String eTag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+    return new CachedImage(location, contentType.toString(), eTag, loadedAt,
+        ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+  }
+}
@@ -0,0 +1,150 @@
+package dev.ancaghenade.shipmentlistdemo.service;
+
+import static java.lang.String.format;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentImage;
+import dev.ancaghenade.shipmentlistdemo.repository.ImageCache.CachedImage;
+import dev.ancaghenade.shipmentlistdemo.repository.ReactiveDynamoDBService;
+import dev.ancaghenade.shipmentlistdemo.repository.ReactiveS3StorageService;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.async.ResponsePublisher;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Reactive counterpart of {@link ShipmentService}, with the same rules for image links,
+ * placeholders and conditional downloads.
+ */
+@Service
+@ConditionalOnProperty(name = "shipment.reactive.enabled", havingValue = "true")
+public class ReactiveShipmentService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveShipmentService.class);
+
+  private final ReactiveDynamoDBService dynamoDBService;
+  private final ReactiveS3StorageService s3StorageService;
+  private final PlaceholderImages placeholderImages;
+  private final String imageCacheControl;
+
+  @Autowired
+  public ReactiveShipmentService(ReactiveDynamoDBService dynamoDBService,
+      ReactiveS3StorageService s3StorageService, PlaceholderImages placeholderImages,
+      @Value("${shipment.image.cache-control:no-cache}") String imageCacheControl) {
+    this.dynamoDBService = dynamoDBService;
+    this.s3StorageService = s3StorageService;
+    this.placeholderImages = placeholderImages;
+    this.imageCacheControl = imageCacheControl;
+  }
+
+  public Flux<Shipment> getAllShipments() {
+    return dynamoDBService.getAllShipments();
+  }
+
+  public Mono<String> deleteShipment(String shipmentId) {
+    // the images and the record are removed at the same time
+    return s3StorageService.delete(shipmentId)
+        .and(dynamoDBService.delete(shipmentId))
+        .thenReturn("Shipment has been deleted");
+  }
+
+  public Mono<Shipment> saveShipment(Shipment shipment) {
+    return dynamoDBService.upsert(shipment);
+  }
+
+  public Mono<Void> uploadShipmentImage(String shipmentId, String originalFilename,
+      String contentType, Flux<ByteBuffer> content) {
+    return getShipment(shipmentId).flatMap(shipment -> {
+      String path = shipment.getShipmentId();
+      String fileName = format("%s-%s", UUID.randomUUID(), originalFilename);
+      Flux<ByteBuffer> body = content.switchIfEmpty(Mono.error(
+          () -> new IllegalStateException("Cannot save empty file to S3. File size: [0]")));
+
+      return s3StorageService.save(format("%s/%s", path, fileName), contentType, body)
+          .onErrorMap(e -> !(e instanceof IllegalStateException),
+              e -> new IllegalStateException("Failed to upload file to S3", e))
+          .then(dynamoDBService.updateImageLink(shipmentId, format("%s/%s", path, fileName)));
+    }).then();
+  }
+
+  public Mono<ShipmentImage> downloadShipmentImage(String shipmentId, List<MediaType> accept,
+      String range, String ifNoneMatch, Instant ifModifiedSince) {
+    return getShipment(shipmentId).flatMap(shipment -> {
+      String imageLink = shipment.getImageLink();
+      if (imageLink == null) {
+        return Mono.just(placeholderImage(accept, ifNoneMatch, ifModifiedSince));
+      }
+      return s3StorageService.download(imageLink, range, ifNoneMatch, ifModifiedSince)
+          .map(this::fromResponse)
+          .onErrorResume(NoSuchKeyException.class, e -> {
+            LOGGER.warn("Could not find image {} of shipment {}", imageLink, shipmentId);
+            return Mono.just(placeholderImage(accept, ifNoneMatch, ifModifiedSince));
+          })
+          .onErrorResume(S3Exception.class, e -> {
+            if (ShipmentService.CONDITIONAL_STATUSES.contains(e.statusCode())) {
+              // not modified, precondition failed or unsatisfiable range, there is no body to send
+              return Mono.just(ShipmentImage.builder()
+                  .status(HttpStatus.valueOf(e.statusCode()))
+                  .eTag(e.statusCode() == 304 ? ifNoneMatch : null)
+                  .cacheControl(imageCacheControl)
+                  .build());
+            }
+            return Mono.error(new IllegalStateException("Failed to download shipment image", e));
+          });
+    });
+  }
+
+  private Mono<Shipment> getShipment(String shipmentId) {
+    return dynamoDBService.getShipment(shipmentId)
+        .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+            format("Shipment %s was not found.", shipmentId))));
+  }
+
+  private ShipmentImage fromResponse(ResponsePublisher<GetObjectResponse> object) {
+    GetObjectResponse response = object.response();
+    return ShipmentImage.builder()
+        .status(response.contentRange() == null ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT)
+        .contentType(response.contentType())
+        .contentLength(response.contentLength())
+        .contentRange(response.contentRange())
+        .eTag(response.eTag())
+        .lastModified(response.lastModified())
+        .cacheControl(imageCacheControl)
+        .contentPublisher(object)
+        .build();
+  }
+
+  private ShipmentImage placeholderImage(List<MediaType> accept, String ifNoneMatch,
+      Instant ifModifiedSince) {
+    CachedImage placeholder = placeholderImages.select(accept);
+    ShipmentImage.ShipmentImageBuilder image = ShipmentImage.builder()
+        .contentType(placeholder.contentType())
+        .eTag(placeholder.eTag())
+        .lastModified(placeholder.lastModified())
+        .cacheControl(CacheControl.noCache().getHeaderValue());
+    if (ShipmentService.isNotModified(placeholder.eTag(), placeholder.lastModified(), ifNoneMatch,
+        ifModifiedSince)) {
+      return image.status(HttpStatus.NOT_MODIFIED).build();
+    }
+    // placeholders are small, a range request gets the whole image
+    return image.status(HttpStatus.OK)
+        .contentLength(placeholder.size())
+        .contentPublisher(Mono.fromSupplier(() -> placeholder.data().duplicate()))
+        .build();
+  }
+}
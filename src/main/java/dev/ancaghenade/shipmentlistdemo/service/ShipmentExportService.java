@@ -0,0 +1,96 @@
+package dev.ancaghenade.shipmentlistdemo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.repository.DynamoDBService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes every shipment as one line of JSON while the table is being scanned. Shipments are
+ * serialized straight into the response through a single generator as each scan page arrives and
+ * are never collected, so the heap holds one page and the generator's buffer whatever the table
+ * size.
+ */
+@Service
+public class ShipmentExportService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShipmentExportService.class);
+  private static final int GZIP_BUFFER_SIZE = 8192;
+
+  private final DynamoDBService dynamoDBService;
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter shipmentWriter;
+
+  @Autowired
+  public ShipmentExportService(DynamoDBService dynamoDBService, ObjectMapper objectMapper) {
+    this.dynamoDBService = dynamoDBService;
+    this.objectMapper = objectMapper;
+    // flushed once per page instead of after every shipment
+    this.shipmentWriter = objectMapper.writerFor(Shipment.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  /**
+   * Returns true when the Accept-Encoding header allows gzip, i.e. it lists gzip or * without
+   * q=0.
+   */
+  public static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    return Arrays.stream(acceptEncoding.split(","))
+        .map(coding -> coding.trim().toLowerCase().split(";"))
+        .filter(coding -> coding[0].trim().equals("gzip") || coding[0].trim().equals("*"))
+        .anyMatch(coding -> Arrays.stream(coding).skip(1)
+            .map(String::trim)
+            .noneMatch(param -> param.matches("q=0(\\.0*)?")));
+  }
+
+  /**
+   * Streams all shipments to the target as NDJSON, gzip compressed if requested, and returns the
+   * number written. The target is left open.
+   */
+  public long export(OutputStream target, boolean gzip) throws IOException {
+    GZIPOutputStream compressed = gzip
+        // sync flush, so every page reaches the client instead of waiting in the deflater
+        ? new GZIPOutputStream(target, GZIP_BUFFER_SIZE, true)
+        : null;
+    long count = 0;
+    try (JsonGenerator generator = objectMapper.getFactory()
+        .createGenerator(compressed == null ? target : compressed)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        Stream<List<Shipment>> pages = dynamoDBService.scanPages()) {
+      // lines are terminated explicitly, not separated by the default space
+      generator.setRootValueSeparator(null);
+      for (List<Shipment> page : (Iterable<List<Shipment>>) pages::iterator) {
+        for (Shipment shipment : page) {
+          shipmentWriter.writeValue(generator, shipment);
+          generator.writeRaw('\n');
+          count++;
+        }
+        generator.flush();
+      }
+    } catch (IOException | RuntimeException e) {
+      // the response is committed by now, the client only sees a truncated body
+      LOGGER.warn("Export aborted after {} shipments: {}", count, e.getMessage());
+      throw e;
+    }
+    if (compressed != null) {
+      compressed.finish();
+    }
+    LOGGER.info("Exported {} shipments", count);
+    return count;
+  }
+}
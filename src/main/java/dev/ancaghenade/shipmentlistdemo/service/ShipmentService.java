@@ -2,44 +2,252 @@ package dev.ancaghenade.shipmentlistdemo.service;
 
 import static java.lang.String.format;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
 import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentImage;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentPage;
+import dev.ancaghenade.shipmentlistdemo.entity.Suggestion;
+import dev.ancaghenade.shipmentlistdemo.entity.WeightStats;
 import dev.ancaghenade.shipmentlistdemo.repository.DynamoDBService;
+import dev.ancaghenade.shipmentlistdemo.repository.ImageCache;
+import dev.ancaghenade.shipmentlistdemo.repository.ImageCache.CachedImage;
 import dev.ancaghenade.shipmentlistdemo.repository.S3StorageService;
-import java.io.File;
+import dev.ancaghenade.shipmentlistdemo.repository.ShipmentReplica;
+import dev.ancaghenade.shipmentlistdemo.repository.TypeaheadIndex;
+import dev.ancaghenade.shipmentlistdemo.repository.WeightStatistics;
+import dev.ancaghenade.shipmentlistdemo.util.ByteBufferInputStream;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 @Service
 public class ShipmentService {
 
+  public static final int MAX_PAGE_SIZE = 100;
+  public static final int MAX_SUGGESTIONS = 50;
+  public static final int MAX_BULK_DELETE = 1000;
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShipmentService.class);
+  static final Set<Integer> CONDITIONAL_STATUSES = Set.of(304, 412, 416);
+
   private final DynamoDBService dynamoDBService;
   private final S3StorageService s3StorageService;
+  private final Optional<ShipmentReplica> shipmentReplica;
+  private final Optional<ImageCache> imageCache;
+  private final Optional<TypeaheadIndex> typeaheadIndex;
+  private final Optional<WeightStatistics> weightStatistics;
+  private final PlaceholderImages placeholderImages;
+  private final String imageCacheControl;
+  // partial updates may only name attributes a shipment has
+  private final ObjectReader changesReader;
+  // runs the DynamoDB side of a deletion while the S3 side runs on the calling thread
+  private final ExecutorService deleteExecutor;
+  // image bodies accepted and served, whether they came from S3, the cache or a placeholder
+  private final DistributionSummary uploadSizes;
+  private final DistributionSummary downloadSizes;
 
   @Autowired
-  public ShipmentService(DynamoDBService dynamoDBService, S3StorageService s3StorageService) {
+  public ShipmentService(DynamoDBService dynamoDBService, S3StorageService s3StorageService,
+      Optional<ShipmentReplica> shipmentReplica, Optional<ImageCache> imageCache,
+      Optional<TypeaheadIndex> typeaheadIndex, Optional<WeightStatistics> weightStatistics,
+      PlaceholderImages placeholderImages, TaskExecutors taskExecutors, ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${shipment.image.cache-control:no-cache}") String imageCacheControl,
+      @Value("${shipment.delete.threads:4}") int deleteThreads) {
     this.dynamoDBService = dynamoDBService;
     this.s3StorageService = s3StorageService;
+    this.shipmentReplica = shipmentReplica;
+    this.imageCache = imageCache;
+    this.typeaheadIndex = typeaheadIndex;
+    this.weightStatistics = weightStatistics;
+    this.placeholderImages = placeholderImages;
+    this.imageCacheControl = imageCacheControl;
+    this.changesReader = objectMapper.readerFor(Shipment.class)
+        .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+            DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES);
+    this.deleteExecutor = taskExecutors.newExecutor("shipment-delete-", deleteThreads);
+    this.uploadSizes = imageSize(meterRegistry, "upload");
+    this.downloadSizes = imageSize(meterRegistry, "download");
+  }
+
+  private static DistributionSummary imageSize(MeterRegistry meterRegistry, String direction) {
+    return DistributionSummary.builder("shipment.image.size")
+        .baseUnit("bytes")
+        .tag("direction", direction)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(1024.0)
+        .maximumExpectedValue(1024.0 * 1024 * 1024)
+        .register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    deleteExecutor.shutdownNow();
   }
 
   public List<Shipment> getAllShipments() {
-    return dynamoDBService.getAllShipments();
+    // the stream-fed replica is used only while it is within its staleness bound
+    return shipmentReplica.filter(ShipmentReplica::isFresh)
+        .map(ShipmentReplica::getAllShipments)
+        .orElseGet(dynamoDBService::getAllShipments);
+  }
+
+  public ShipmentPage getShipmentPage(int limit, String nextToken) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException(
+          format("Page limit must be between 1 and %d, was %d.", MAX_PAGE_SIZE, limit));
+    }
+    return dynamoDBService.getShipmentPage(limit, nextToken);
+  }
+
+  /**
+   * Pages through the shipments whose recipient or sender address has the given city or postal
+   * code, using the matching secondary index instead of scanning the table.
+   */
+  public ShipmentPage findShipments(String participant, String city, String postalCode, int limit,
+      String nextToken) {
+    if ((city == null) == (postalCode == null)) {
+      throw new IllegalArgumentException("Exactly one of city and postalCode is required.");
+    }
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException(
+          format("Page limit must be between 1 and %d, was %d.", MAX_PAGE_SIZE, limit));
+    }
+    String indexName = switch (participant) {
+      case "recipient" -> city != null ? Shipment.RECIPIENT_CITY_INDEX
+          : Shipment.RECIPIENT_POSTAL_CODE_INDEX;
+      case "sender" -> city != null ? Shipment.SENDER_CITY_INDEX
+          : Shipment.SENDER_POSTAL_CODE_INDEX;
+      default -> throw new IllegalArgumentException(
+          format("Participant must be recipient or sender, was %s.", participant));
+    };
+    return dynamoDBService.queryIndex(indexName, city != null ? city : postalCode, limit,
+        nextToken);
+  }
+
+  /**
+   * Suggests participant names and address fields with a word starting with the query, answered
+   * from memory. Nothing is suggested while the typeahead index is disabled.
+   */
+  public List<Suggestion> autocomplete(String query, int limit) {
+    if (limit < 1 || limit > MAX_SUGGESTIONS) {
+      throw new IllegalArgumentException(
+          format("Suggestion limit must be between 1 and %d, was %d.", MAX_SUGGESTIONS, limit));
+    }
+    return typeaheadIndex.map(index -> index.suggest(query, limit)).orElseGet(List::of);
+  }
+
+  /**
+   * Weight statistics per recipient or sender city, maintained in memory. Empty while they are
+   * disabled.
+   */
+  public List<WeightStats> getWeightStats(String participant, String city) {
+    return weightStatistics.map(statistics -> statistics.stats(participant, city))
+        .orElseGet(List::of);
   }
 
   public String deleteShipment(String shipmentId) {
+    CompletableFuture<String> record = CompletableFuture.supplyAsync(
+        () -> dynamoDBService.delete(shipmentId), deleteExecutor);
     s3StorageService.delete(shipmentId);
-    return dynamoDBService.delete(shipmentId);
+    return join(record);
+  }
+
+  /**
+   * Deletes many shipments at once, the images of all of them are purged with shared
+   * DeleteObjects requests while the records are removed with batch writes.
+   */
+  public String deleteShipments(List<String> shipmentIds) {
+    if (shipmentIds.isEmpty() || shipmentIds.size() > MAX_BULK_DELETE) {
+      throw new IllegalArgumentException(format(
+          "Between 1 and %d shipment ids can be deleted at once, got %d.", MAX_BULK_DELETE,
+          shipmentIds.size()));
+    }
+    List<String> distinctIds = shipmentIds.stream().distinct().toList();
+    CompletableFuture<Void> records = CompletableFuture.runAsync(
+        () -> dynamoDBService.deleteAll(distinctIds), deleteExecutor);
+    s3StorageService.delete(distinctIds);
+    join(records);
+    return format("%d shipments have been deleted", distinctIds.size());
   }
 
   public Shipment saveShipment(Shipment shipment) {
     return dynamoDBService.upsert(shipment);
   }
 
+  /**
+   * Writes only the attributes present in the JSON object: nested objects are merged into the
+   * stored participant or address and null removes an attribute. With an expected version the
+   * update fails with a ConcurrentModificationException if someone else changed the shipment
+   * first. Returns the shipment as stored, or empty if it does not exist.
+   */
+  public Optional<Shipment> patchShipment(String shipmentId, JsonNode changes,
+      Long expectedVersion) {
+    if (changes == null || !changes.isObject() || changes.isEmpty()) {
+      throw new IllegalArgumentException("The changes must be a non-empty JSON object.");
+    }
+    if (changes.has("shipmentId") || changes.has("version")) {
+      throw new IllegalArgumentException("The shipmentId and version cannot be changed.");
+    }
+    Shipment values;
+    try {
+      values = changesReader.readValue(changes);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Invalid changes: " + e.getOriginalMessage(), e);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read the changes", e);
+    }
+    List<String> paths = new ArrayList<>();
+    collectPaths("", changes, paths);
+    return dynamoDBService.patch(shipmentId, values, paths, expectedVersion);
+  }
+
+  private static void collectPaths(String prefix, JsonNode node, List<String> paths) {
+    node.fields().forEachRemaining(field -> {
+      String path = prefix + field.getKey();
+      if (field.getValue().isObject()) {
+        collectPaths(path + ".", field.getValue(), paths);
+      } else {
+        paths.add(path);
+      }
+    });
+  }
+
   public void uploadShipmentImage(String shipmentId, MultipartFile file) {
     checkIfFileIsEmpty(file);
 
@@ -52,33 +260,148 @@ public class ShipmentService {
     } catch (IOException e) {
       throw new IllegalStateException("Failed to upload file to S3", e);
     }
+    uploadSizes.record(file.getSize());
 
-    shipment.setImageLink(format("%s/%s", path, fileName));
-    dynamoDBService.upsert(shipment);
+    // only the link is written, the rest of the shipment may have changed during the upload
+    dynamoDBService.updateImageLink(shipmentId, format("%s/%s", path, fileName));
   }
 
-  public byte[] downloadShipmentImage(String shipmentId) {
+  public ShipmentImage downloadShipmentImage(String shipmentId, List<MediaType> accept,
+      String range, String ifNoneMatch, Instant ifModifiedSince) {
+    ShipmentImage image = findShipmentImage(shipmentId, accept, range, ifNoneMatch,
+        ifModifiedSince);
+    if (image.getContent() != null && image.getContentLength() != null) {
+      downloadSizes.record(image.getContentLength());
+    }
+    return image;
+  }
+
+  private ShipmentImage findShipmentImage(String shipmentId, List<MediaType> accept,
+      String range, String ifNoneMatch, Instant ifModifiedSince) {
     Shipment shipment = getShipment(shipmentId);
+    String imageLink = shipment.getImageLink();
+    if (imageLink == null) {
+      return placeholderImage(accept, range, ifNoneMatch, ifModifiedSince);
+    }
 
+    Optional<CachedImage> cached = imageCache.flatMap(cache -> cache.get(imageLink));
+    if (cached.isPresent() && imageCache.get().isFresh(cached.get())) {
+      return fromBuffer(cached.get(), imageCacheControl, range, ifNoneMatch, ifModifiedSince);
+    }
+
+    // taken before the read, an invalidation while it runs keeps the image out of the cache
+    long cacheGeneration = imageCache.map(ImageCache::generation).orElse(0L);
     try {
-      return Optional.ofNullable(shipment.getImageLink())
-              .map(link -> {
-                try {
-                  return s3StorageService.download(link);
-                } catch (IOException e) {
-                  throw new RuntimeException("Failed to download image from S3", e);
-                }
-              })
-              .orElseGet(this::getPlaceholderImage);
-    } catch (RuntimeException e) {
+      if (cached.isPresent()) {
+        Optional<CachedImage> current = revalidate(cached.get(), cacheGeneration);
+        if (current.isPresent()) {
+          return fromBuffer(current.get(), imageCacheControl, range, ifNoneMatch,
+              ifModifiedSince);
+        }
+      }
+      ResponseInputStream<GetObjectResponse> object = s3StorageService.openStream(
+          imageLink, range, ifNoneMatch, ifModifiedSince);
+      GetObjectResponse response = object.response();
+      // whole objects small enough for the cache are read once and then served from it
+      if (range == null && imageCache.isPresent()
+          && imageCache.get().accepts(response.contentLength())) {
+        CachedImage image = new CachedImage(imageLink, response.contentType(), response.eTag(),
+            response.lastModified(), readToDirectBuffer(object, response.contentLength()));
+        imageCache.get().put(image, cacheGeneration);
+        return fromBuffer(image, imageCacheControl, null, null, null);
+      }
+      return ShipmentImage.builder()
+          .status(response.contentRange() == null ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT)
+          .contentType(response.contentType())
+          .contentLength(response.contentLength())
+          .contentRange(response.contentRange())
+          .eTag(response.eTag())
+          .lastModified(response.lastModified())
+          .cacheControl(imageCacheControl)
+          .content(object)
+          .build();
+    } catch (NoSuchKeyException e) {
+      LOGGER.warn("Could not find image {} of shipment {}", imageLink, shipmentId);
+      return placeholderImage(accept, range, ifNoneMatch, ifModifiedSince);
+    } catch (S3Exception e) {
+      if (CONDITIONAL_STATUSES.contains(e.statusCode())) {
+        // not modified, precondition failed or unsatisfiable range, there is no body to send
+        return ShipmentImage.builder()
+            .status(HttpStatus.valueOf(e.statusCode()))
+            .eTag(e.statusCode() == 304 ? ifNoneMatch : null)
+            .cacheControl(imageCacheControl)
+            .build();
+      }
+      throw new IllegalStateException("Failed to download shipment image", e);
+    } catch (IOException e) {
       throw new IllegalStateException("Failed to download shipment image", e);
     }
   }
 
+  /*
+   * Asks S3 whether the cached image is still current, the watermark Lambda rewrites images under
+   * the same key and only one instance gets to invalidate it. A 304 keeps the cached bytes, a new
+   * body replaces them; empty when the new body is too large for the cache.
+   */
+  private Optional<CachedImage> revalidate(CachedImage cached, long cacheGeneration)
+      throws IOException {
+    ImageCache cache = imageCache.orElseThrow();
+    try (ResponseInputStream<GetObjectResponse> object = s3StorageService.openStream(
+        cached.key(), null, cached.eTag(), null)) {
+      GetObjectResponse response = object.response();
+      if (!cache.accepts(response.contentLength())) {
+        cache.invalidate(cached.key());
+        object.abort();
+        return Optional.empty();
+      }
+      CachedImage image = new CachedImage(cached.key(), response.contentType(), response.eTag(),
+          response.lastModified(), readToDirectBuffer(object, response.contentLength()));
+      cache.put(image, cacheGeneration);
+      return Optional.of(image);
+    } catch (S3Exception e) {
+      if (e.statusCode() == 304) {
+        cache.revalidated(cached.key());
+        return Optional.of(cached);
+      }
+      if (e.statusCode() == 404) {
+        // the object is gone, the caller serves the placeholder
+        cache.invalidate(cached.key());
+      }
+      throw e;
+    }
+  }
+
   public void updateImageLink(String shipmentId, String imageLink) {
+    // the watermark Lambda rewrites the object under the same key before this notification arrives
+    imageCache.ifPresent(cache -> cache.invalidate(imageLink));
     dynamoDBService.updateImageLink(shipmentId, imageLink);
   }
 
+  /**
+   * Batch variant of {@link #updateImageLink(String, String)}, for already coalesced updates with
+   * one image link per shipment.
+   */
+  public void updateImageLinks(Map<String, String> imageLinks) {
+    imageCache.ifPresent(cache -> imageLinks.values().forEach(cache::invalidate));
+    dynamoDBService.updateImageLinks(imageLinks);
+  }
+
+  public Map<String, Number> getImageCacheStats() {
+    return imageCache.map(ImageCache::stats).orElseGet(Map::of);
+  }
+
+  public Map<String, Long> getCacheStats() {
+    return dynamoDBService.getCacheStats();
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+  }
+
   private Shipment getShipment(String shipmentId) {
     return dynamoDBService.getShipment(shipmentId).stream()
             .findFirst()
@@ -91,11 +414,78 @@ public class ShipmentService {
     }
   }
 
-  private byte[] getPlaceholderImage() {
+  private ShipmentImage fromBuffer(CachedImage image, String cacheControl, String range,
+      String ifNoneMatch, Instant ifModifiedSince) {
+    ShipmentImage.ShipmentImageBuilder response = ShipmentImage.builder()
+        .contentType(image.contentType())
+        .eTag(image.eTag())
+        .lastModified(image.lastModified())
+        .cacheControl(cacheControl);
+    if (isNotModified(image.eTag(), image.lastModified(), ifNoneMatch, ifModifiedSince)) {
+      return response.status(HttpStatus.NOT_MODIFIED).build();
+    }
+
+    ByteBuffer data = image.data().slice();
+    long length = data.remaining();
+    List<HttpRange> ranges;
     try {
-      return Files.readAllBytes(new File("src/main/resources/placeholder.jpg").toPath());
-    } catch (IOException e) {
-      throw new RuntimeException("Failed to read placeholder image", e);
+      ranges = range == null ? List.of() : HttpRange.parseRanges(range);
+    } catch (IllegalArgumentException e) {
+      ranges = List.of();
+    }
+    // multiple ranges are not supported, the whole image is sent instead
+    if (ranges.size() != 1) {
+      return response.status(HttpStatus.OK)
+          .contentLength(length)
+          .content(new ByteBufferInputStream(data))
+          .build();
+    }
+
+    HttpRange requested = ranges.get(0);
+    long start;
+    long end;
+    try {
+      start = requested.getRangeStart(length);
+      end = requested.getRangeEnd(length);
+    } catch (IllegalArgumentException e) {
+      return response.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .contentRange("bytes */" + length)
+          .build();
     }
+    data.limit((int) end + 1).position((int) start);
+    return response.status(HttpStatus.PARTIAL_CONTENT)
+        .contentLength(end - start + 1)
+        .contentRange(format("bytes %d-%d/%d", start, end, length))
+        .content(new ByteBufferInputStream(data))
+        .build();
+  }
+
+  static boolean isNotModified(String eTag, Instant lastModified, String ifNoneMatch,
+      Instant ifModifiedSince) {
+    if (ifNoneMatch != null) {
+      return eTag != null && Arrays.stream(ifNoneMatch.split(","))
+          .map(tag -> tag.trim().replaceFirst("^W/", ""))
+          .anyMatch(tag -> tag.equals("*") || tag.equals(eTag));
+    }
+    return ifModifiedSince != null && lastModified != null
+        && !lastModified.truncatedTo(ChronoUnit.SECONDS).isAfter(ifModifiedSince);
+  }
+
+  private static ByteBuffer readToDirectBuffer(InputStream inputStream, long size)
+      throws IOException {
+    ByteBuffer data = ByteBuffer.allocateDirect(Math.toIntExact(size));
+    try (ReadableByteChannel channel = Channels.newChannel(inputStream)) {
+      while (data.hasRemaining() && channel.read(data) >= 0) {
+        // keep reading until the buffer is full or the object ends
+      }
+    }
+    return data.flip().asReadOnlyBuffer();
+  }
+
+  private ShipmentImage placeholderImage(List<MediaType> accept, String range,
+      String ifNoneMatch, Instant ifModifiedSince) {
+    // the placeholder is replaced as soon as an image is uploaded, so it is always revalidated
+    return fromBuffer(placeholderImages.select(accept), CacheControl.noCache().getHeaderValue(),
+        range, ifNoneMatch, ifModifiedSince);
   }
 }
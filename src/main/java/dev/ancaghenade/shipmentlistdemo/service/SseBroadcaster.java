@@ -0,0 +1,212 @@
+package dev.ancaghenade.shipmentlistdemo.service;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fans events out to SSE subscribers without blocking the caller. Every subscriber has its own
+ * bounded queue that is drained by a small dispatcher pool, one drain at a time per subscriber, so
+ * a slow client only ever delays itself. What happens when a queue is full is decided by the
+ * {@link SlowConsumerPolicy}. The counters are published as meters, read when they are scraped.
+ */
+@Component
+public class SseBroadcaster implements MeterBinder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SseBroadcaster.class);
+  private static final Object HEARTBEAT = new Object();
+
+  public enum SlowConsumerPolicy {
+    // discard the oldest queued event to make room for the new one
+    DROP_OLDEST,
+    // discard the new event and keep what is queued
+    DROP_NEWEST,
+    // close the connection, the client reconnects and reloads its state
+    DISCONNECT
+  }
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final int queueCapacity;
+  private final SlowConsumerPolicy slowConsumerPolicy;
+  private final ExecutorService dispatcher;
+  private final ScheduledExecutorService heartbeat;
+
+  private final AtomicLong published = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong disconnected = new AtomicLong();
+  private final AtomicLong sendFailures = new AtomicLong();
+
+  @Autowired
+  public SseBroadcaster(TaskExecutors taskExecutors,
+      @Value("${shipment.sse.queue-capacity:64}") int queueCapacity,
+      @Value("${shipment.sse.dispatch-threads:4}") int dispatchThreads,
+      @Value("${shipment.sse.heartbeat-interval:15s}") Duration heartbeatInterval,
+      @Value("${shipment.sse.slow-consumer-policy:DROP_OLDEST}") SlowConsumerPolicy policy) {
+    this.queueCapacity = queueCapacity;
+    this.slowConsumerPolicy = policy;
+    this.dispatcher = taskExecutors.newExecutor("sse-dispatch-", dispatchThreads);
+    this.heartbeat = Executors.newSingleThreadScheduledExecutor(
+        new CustomizableThreadFactory("sse-heartbeat-"));
+    heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatInterval.toMillis(),
+        heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    heartbeat.shutdownNow();
+    dispatcher.shutdownNow();
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+  }
+
+  public SseEmitter subscribe(SseEmitter emitter) {
+    Subscriber subscriber = new Subscriber(emitter);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(() -> {
+      subscribers.remove(subscriber);
+      emitter.complete();
+      LOGGER.info("SseEmitter is timed out");
+    });
+    emitter.onError(e -> subscribers.remove(subscriber));
+    subscribers.add(subscriber);
+    return emitter;
+  }
+
+  /**
+   * Queues the event for every subscriber and returns immediately.
+   */
+  public void broadcast(Object data) {
+    published.incrementAndGet();
+    subscribers.forEach(subscriber -> subscriber.offer(data));
+  }
+
+  public int getSubscriberCount() {
+    return subscribers.size();
+  }
+
+  public Map<String, Long> stats() {
+    return Map.of(
+        "subscribers", (long) subscribers.size(),
+        "published", published.get(),
+        "dropped", dropped.get(),
+        "disconnected", disconnected.get(),
+        "sendFailures", sendFailures.get());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("sse.subscribers", subscribers, Set::size)
+        .description("Open SSE connections")
+        .register(registry);
+    FunctionCounter.builder("sse.events.published", published, AtomicLong::get)
+        .register(registry);
+    FunctionCounter.builder("sse.events.dropped", dropped, AtomicLong::get)
+        .description("Events discarded because a subscriber's queue was full")
+        .register(registry);
+    FunctionCounter.builder("sse.subscribers.disconnected", disconnected, AtomicLong::get)
+        .description("Subscribers closed by the DISCONNECT policy")
+        .register(registry);
+    FunctionCounter.builder("sse.send.failures", sendFailures, AtomicLong::get)
+        .register(registry);
+  }
+
+  private void sendHeartbeats() {
+    // a comment line keeps idle connections from being closed by proxies
+    subscribers.stream()
+        .filter(subscriber -> subscriber.queue.isEmpty())
+        .forEach(subscriber -> subscriber.offer(HEARTBEAT));
+  }
+
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    private void offer(Object event) {
+      if (!queue.offer(event)) {
+        if (event == HEARTBEAT) {
+          return;
+        }
+        switch (slowConsumerPolicy) {
+          case DROP_NEWEST -> {
+            dropped.incrementAndGet();
+            return;
+          }
+          case DROP_OLDEST -> {
+            queue.poll();
+            dropped.incrementAndGet();
+            if (!queue.offer(event)) {
+              dropped.incrementAndGet();
+            }
+          }
+          case DISCONNECT -> {
+            disconnected.incrementAndGet();
+            subscribers.remove(this);
+            emitter.complete();
+            return;
+          }
+        }
+      }
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (draining.compareAndSet(false, true)) {
+        dispatcher.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      try {
+        Object event;
+        while ((event = queue.poll()) != null) {
+          if (event == HEARTBEAT) {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+          } else {
+            emitter.send(SseEmitter.event().data(event));
+          }
+        }
+      } catch (IOException | IllegalStateException e) {
+        // the client went away or the emitter was already completed
+        sendFailures.incrementAndGet();
+        subscribers.remove(this);
+        queue.clear();
+        LOGGER.debug("Error sending SSE event: {}", e.getMessage());
+        emitter.completeWithError(e);
+      } finally {
+        draining.set(false);
+      }
+      // an event offered while the flag was still set would otherwise wait for the next one
+      if (!queue.isEmpty() && subscribers.contains(this)) {
+        scheduleDrain();
+      }
+    }
+  }
+}
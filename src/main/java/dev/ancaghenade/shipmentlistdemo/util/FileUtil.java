@@ -1,17 +1,62 @@
 package dev.ancaghenade.shipmentlistdemo.util;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import org.springframework.web.multipart.MultipartFile;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 
 public class FileUtil {
 
-  public static File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-    File file = File.createTempFile("temp", null);
-    try (FileOutputStream fos = new FileOutputStream(file)) {
-      fos.write(multipartFile.getBytes());
+  private FileUtil() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Fills the whole buffer from the stream, used to cut an upload into parts without ever holding
+   * more than one part per buffer in memory.
+   */
+  public static byte[] readPart(InputStream inputStream, int partSize) throws IOException {
+    byte[] part = new byte[partSize];
+    int read = inputStream.readNBytes(part, 0, partSize);
+    if (read != partSize) {
+      throw new EOFException("Expected " + partSize + " bytes but the upload ended after " + read);
+    }
+    return part;
+  }
+
+  /**
+   * Reads the stream until the buffer is full, used to write a downloaded part into its slice of
+   * the target buffer.
+   */
+  public static void readFully(InputStream inputStream, ByteBuffer target) throws IOException {
+    ReadableByteChannel channel = Channels.newChannel(inputStream);
+    while (target.hasRemaining()) {
+      if (channel.read(target) < 0) {
+        throw new EOFException("Expected " + target.remaining()
+            + " more bytes but the download ended");
+      }
+    }
+  }
+
+  /**
+   * Copies exactly length bytes from the stream into the file at the given position. The writes
+   * are positional and leave the channel's own position alone, so parts can be written
+   * concurrently, but the file has to be at least position bytes long already.
+   */
+  public static void transferFully(InputStream inputStream, FileChannel target, long position,
+      long length) throws IOException {
+    ReadableByteChannel channel = Channels.newChannel(inputStream);
+    long transferred = 0;
+    while (transferred < length) {
+      long count = target.transferFrom(channel, position + transferred, length - transferred);
+      if (count == 0) {
+        throw new EOFException("Expected " + (length - transferred)
+            + " more bytes but the download ended");
+      }
+      transferred += count;
     }
-    return file;
   }
 }
@@ -0,0 +1,50 @@
+package dev.ancaghenade.shipmentlistdemo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Converts DynamoDB's lastEvaluatedKey / exclusiveStartKey maps to an opaque, URL safe token, so
+ * clients can page through results without knowing anything about the table keys.
+ */
+public class PageToken {
+
+  private PageToken() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+    if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+      return null;
+    }
+    var json = new JSONObject();
+    lastEvaluatedKey.forEach((name, value) -> {
+      if (value.s() == null) {
+        throw new IllegalStateException("Only string key attributes can be paginated: " + name);
+      }
+      json.put(name, value.s());
+    });
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static Map<String, AttributeValue> decode(String token) {
+    if (token == null || token.isBlank()) {
+      return null;
+    }
+    try {
+      var json = new JSONObject(
+          new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+      Map<String, AttributeValue> key = new HashMap<>();
+      json.keySet().forEach(name -> key.put(name, AttributeValue.fromS(json.getString(name))));
+      return key;
+    } catch (IllegalArgumentException | JSONException e) {
+      throw new IllegalArgumentException("Invalid page token", e);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.entity.BulkIngestResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Posts shipments to the bulk endpoint as NDJSON and as a JSON array, with a few broken items in
+ * between, and checks the summary against what ended up in the table. Repeated shipments end up
+ * with their last item.
+ */
+public class BulkIngestTest extends LocalStackSetupConfigurations {
+
+    private static final int SHIPMENTS = 1000;
+    private static final String ID_PREFIX = "bulk-ingest-";
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+    }
+
+    @AfterEach
+    void cleanup() {
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        restTemplate.exchange(BASE_URL + "/api/shipment", HttpMethod.DELETE,
+                new HttpEntity<>(IntStream.range(0, SHIPMENTS).mapToObj(i -> ID_PREFIX + i).toList(),
+                        headers), String.class);
+    }
+
+    @Test
+    void ingestNdjson() {
+        var lines = IntStream.range(0, SHIPMENTS).mapToObj(BulkIngestTest::shipmentJson)
+                .collect(Collectors.toList());
+        // a shipment without an id and one with a weight that is not a number
+        lines.add(100, "{\"weight\": 1.0}");
+        lines.add(500, "{\"shipmentId\": \"" + ID_PREFIX + "invalid\", \"weight\": \"heavy\"}");
+
+        var result = post(String.join("\n", lines), MediaType.APPLICATION_NDJSON);
+
+        assertEquals(SHIPMENTS + 2, result.getReceived());
+        assertEquals(SHIPMENTS, result.getWritten());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(100L, 500L), result.getFailures().stream()
+                .map(BulkIngestResult.ItemFailure::getIndex).toList());
+        assertStored();
+    }
+
+    @Test
+    void ingestJsonArray() {
+        var body = IntStream.range(0, SHIPMENTS).mapToObj(BulkIngestTest::shipmentJson)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        var start = System.nanoTime();
+        var result = post(body, MediaType.APPLICATION_JSON);
+        LOGGER.info("Ingested {} shipments in {} ms", result.getWritten(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        assertEquals(SHIPMENTS, result.getWritten());
+        assertTrue(result.getFailures().isEmpty());
+        assertStored();
+    }
+
+    @Test
+    void laterItemOfTheSameShipmentWins() {
+        // the same few shipments over and over, spread across many batches in flight at once
+        var body = IntStream.range(0, SHIPMENTS)
+                .mapToObj(i -> "{\"shipmentId\": \"" + ID_PREFIX + (i % 10) + "\", \"weight\": " + i + "}")
+                .collect(Collectors.joining("\n"));
+
+        var result = post(body, MediaType.APPLICATION_NDJSON);
+
+        assertEquals(SHIPMENTS, result.getWritten());
+        for (int id = 0; id < 10; id++) {
+            var shipmentId = ID_PREFIX + id;
+            var item = dynamoDbClient.getItem(builder -> builder.tableName("shipment")
+                    .key(Map.of("shipmentId", AttributeValue.fromS(shipmentId)))).item();
+            assertEquals(SHIPMENTS - 10 + id, Double.parseDouble(item.get("weight").n()), shipmentId);
+        }
+    }
+
+    private BulkIngestResult post(String body, MediaType contentType) {
+        var headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        var response = restTemplate.postForEntity(BASE_URL + "/api/shipment/bulk",
+                new HttpEntity<>(body, headers), BulkIngestResult.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private static void assertStored() {
+        for (int i = 0; i < SHIPMENTS; i += 97) {
+            var id = ID_PREFIX + i;
+            assertTrue(dynamoDbClient.getItem(builder -> builder.tableName("shipment")
+                    .key(Map.of("shipmentId", AttributeValue.fromS(id)))).hasItem(), id);
+        }
+    }
+
+    private static String shipmentJson(int i) {
+        return "{\"shipmentId\": \"" + ID_PREFIX + i + "\", \"weight\": " + (i % 50 + 0.5) + "}";
+    }
+}
@@ -20,6 +20,12 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
 import software.amazon.awssdk.services.lambda.LambdaClient;
 import software.amazon.awssdk.services.s3.S3Client;
 
@@ -27,6 +33,10 @@ import java.io.File;
 import java.net.URI;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Testcontainers
 @SpringBootTest(webEnvironment = WebEnvironment.DEFINED_PORT)
@@ -60,6 +70,9 @@ public class LocalStackSetupConfigurations {
     protected static Logger logger = LoggerFactory.getLogger(LocalStackSetupConfigurations.class);
     protected static ObjectMapper objectMapper = new ObjectMapper();
     protected static URI localStackEndpoint;
+    // same as the global secondary indexes in terraform/main.tf
+    protected static final List<String> SHIPMENT_INDEX_KEYS =
+            List.of("recipientCity", "recipientPostalCode", "senderCity", "senderPostalCode");
 
     @BeforeAll()
     protected static void setupConfig() {
@@ -84,6 +97,59 @@ public class LocalStackSetupConfigurations {
                 .credentialsProvider(StaticCredentialsProvider.create(
                         AwsBasicCredentials.create(localStack.getAccessKey(), localStack.getSecretKey())))
                 .build();
+        createShipmentIndexes();
+    }
+
+    /**
+     * The table in the cloud pod predates the secondary indexes, they are added one at a time since
+     * UpdateTable creates at most one index per call.
+     */
+    private static void createShipmentIndexes() {
+        for (String indexKey : SHIPMENT_INDEX_KEYS) {
+            TableDescription table = dynamoDbClient.describeTable(builder -> builder.tableName("shipment")).table();
+            Set<String> indexes = table.globalSecondaryIndexes().stream()
+                    .map(GlobalSecondaryIndexDescription::indexName)
+                    .collect(Collectors.toSet());
+            if (indexes.contains(indexKey + "-index")) {
+                continue;
+            }
+            boolean provisioned = table.billingModeSummary() == null
+                    || table.billingModeSummary().billingMode() == BillingMode.PROVISIONED;
+            dynamoDbClient.updateTable(builder -> builder
+                    .tableName("shipment")
+                    .attributeDefinitions(definition -> definition
+                            .attributeName(indexKey)
+                            .attributeType(ScalarAttributeType.S))
+                    .globalSecondaryIndexUpdates(update -> update.create(index -> {
+                        index.indexName(indexKey + "-index")
+                                .keySchema(key -> key.attributeName(indexKey).keyType("HASH"))
+                                .projection(projection -> projection.projectionType(ProjectionType.ALL));
+                        if (provisioned) {
+                            index.provisionedThroughput(throughput -> throughput
+                                    .readCapacityUnits(5L)
+                                    .writeCapacityUnits(5L));
+                        }
+                    })));
+            awaitActiveIndexes();
+        }
+    }
+
+    private static void awaitActiveIndexes() {
+        for (int attempt = 0; attempt < 60; attempt++) {
+            boolean active = dynamoDbClient.describeTable(builder -> builder.tableName("shipment")).table()
+                    .globalSecondaryIndexes().stream()
+                    .allMatch(index -> index.indexStatus() == IndexStatus.ACTIVE);
+            if (active) {
+                return;
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalStateException("Shipment indexes did not become active");
     }
 
     @DynamicPropertySource
@@ -102,6 +168,26 @@ public class LocalStackSetupConfigurations {
         registry.add("shipment-picture-bucket", () -> BUCKET_NAME);
     }
 
+    /**
+     * Properties for starting a second application instance against the same LocalStack
+     * container, for comparisons with the test context.
+     */
+    protected static String[] applicationProperties(String... overrides) {
+        var endpoint = localStack.getEndpoint();
+        var properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "aws.s3.endpoint=" + endpoint,
+                "aws.dynamodb.endpoint=" + endpoint,
+                "aws.sqs.endpoint=" + endpoint,
+                "aws.sns.endpoint=" + endpoint,
+                "aws.credentials.access-key=" + localStack.getAccessKey(),
+                "aws.credentials.secret-key=" + localStack.getSecretKey(),
+                "aws.region=" + localStack.getRegion(),
+                "shipment-picture-bucket=" + BUCKET_NAME));
+        properties.addAll(List.of(overrides));
+        return properties.toArray(String[]::new);
+    }
+
     protected static org.testcontainers.containers.Container.ExecResult executeInContainer(String command) throws Exception {
 
         final var execResult = localStack.execInContainer(formatCommand(command));
@@ -0,0 +1,57 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.controller.MessageReceiver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks how a batch of picture notifications is coalesced: the newest notification per shipment
+ * wins whatever its position in the batch, and malformed notifications are dropped without
+ * affecting the others.
+ */
+class MessageReceiverTest {
+
+    @Test
+    void newestNotificationPerShipmentWins() {
+        var notifications = MessageReceiver.parse(List.of(
+                notification("a/second.jpg", "2024-03-01T10:00:02Z"),
+                notification("b/only.jpg", "2024-03-01T10:00:00Z"),
+                notification("a/first.jpg", "2024-03-01T10:00:01Z"),
+                notification("a/third.jpg", "2024-03-01T10:00:03Z")));
+
+        var imageLinks = MessageReceiver.coalesce(notifications);
+
+        assertEquals(Map.of("a", "a/third.jpg", "b", "b/only.jpg"), imageLinks);
+        assertEquals(List.of("a", "b"), List.copyOf(imageLinks.keySet()));
+    }
+
+    @Test
+    void notificationsWithoutTimestampKeepBatchOrder() {
+        var notifications = MessageReceiver.parse(List.of(
+                notification("a/first.jpg", "2024-03-01T10:00:05Z"),
+                "{\"Message\": \"a/second.jpg\"}"));
+
+        assertEquals(Map.of("a", "a/second.jpg"), MessageReceiver.coalesce(notifications));
+    }
+
+    @Test
+    void malformedNotificationsAreDropped() {
+        var notifications = MessageReceiver.parse(List.of(
+                "not json",
+                "{\"Subject\": \"no message\"}",
+                notification("c/bad-time.jpg", "yesterday"),
+                notification("/no-shipment.jpg", "2024-03-01T10:00:00Z"),
+                notification("d/good.jpg", "2024-03-01T10:00:00Z")));
+
+        assertEquals(1, notifications.size());
+        assertEquals(Map.of("d", "d/good.jpg"), MessageReceiver.coalesce(notifications));
+    }
+
+    private static String notification(String message, String timestamp) {
+        return "{\"Message\": \"" + message + "\", \"Timestamp\": \"" + timestamp + "\"}";
+    }
+}
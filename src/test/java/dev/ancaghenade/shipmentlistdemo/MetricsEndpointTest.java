@@ -0,0 +1,49 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls the API and checks that the SDK, HTTP and SSE meters show up in the Prometheus scrape with
+ * histogram buckets where p99 is needed.
+ */
+public class MetricsEndpointTest extends LocalStackSetupConfigurations {
+
+    private static final String SHIPMENT_ID = "metrics-1";
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        new RestTemplate().postForEntity(BASE_URL + "/api/shipment",
+                Shipment.builder().shipmentId(SHIPMENT_ID).weight(1.0).build(), Void.class);
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        new RestTemplate().delete(BASE_URL + "/api/shipment/" + SHIPMENT_ID);
+    }
+
+    @Test
+    void prometheusScrapeHasLatencyHistograms() {
+        restTemplate.getForEntity(BASE_URL + "/api/shipment/page?limit=5", String.class);
+
+        var response = restTemplate.getForEntity(BASE_URL + "/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        var scrape = response.getBody();
+
+        assertTrue(scrape.contains("aws_sdk_api_call_seconds_bucket{"), scrape);
+        assertTrue(scrape.matches("(?s).*aws_sdk_api_call_seconds_count\\{[^}]*operation=\"UpdateItem\".*"));
+        assertTrue(scrape.matches("(?s).*aws_sdk_api_call_seconds_count\\{[^}]*service=\"DynamoDB\".*"));
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("sse_subscribers "));
+        assertTrue(scrape.contains("sse_send_failures_total "));
+        assertTrue(scrape.contains("sqs_message_lag_seconds_bucket{"));
+    }
+}
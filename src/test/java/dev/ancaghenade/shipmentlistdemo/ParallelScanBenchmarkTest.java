@@ -0,0 +1,90 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.repository.DynamoDBService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the serial scan with the segmented parallel scan on a seeded shipment table.
+ * Timings are logged, the assertions only make sure both modes read the same items.
+ */
+@Tag("benchmark")
+public class ParallelScanBenchmarkTest extends LocalStackSetupConfigurations {
+
+    private static final int SEEDED_SHIPMENTS = 5000;
+    private static final String ID_PREFIX = "scan-benchmark-";
+
+    @Autowired
+    private DynamoDBService dynamoDBService;
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        writeInBatches(IntStream.range(0, SEEDED_SHIPMENTS)
+                .mapToObj(i -> WriteRequest.builder().putRequest(PutRequest.builder().item(Map.of(
+                        "shipmentId", AttributeValue.fromS(ID_PREFIX + i),
+                        "weight", AttributeValue.fromN(String.valueOf(i % 100)),
+                        "imageLink", AttributeValue.fromS(ID_PREFIX + i + "/" + "x".repeat(200))
+                )).build()).build())
+                .toList());
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        writeInBatches(IntStream.range(0, SEEDED_SHIPMENTS)
+                .mapToObj(i -> WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(Map.of(
+                        "shipmentId", AttributeValue.fromS(ID_PREFIX + i))).build()).build())
+                .toList());
+    }
+
+    @Test
+    void compareSerialAndParallelScan() {
+        // warm up connections and the bean mapper before measuring
+        dynamoDBService.serialScan();
+
+        var expected = measure("serial", () -> dynamoDBService.serialScan().size());
+        for (int segments : new int[]{2, 4, 8, 16}) {
+            var actual = measure(segments + " segments",
+                    () -> dynamoDBService.parallelScan(segments).size());
+            assertEquals(expected, actual);
+        }
+    }
+
+    private int measure(String mode, Supplier<Integer> scan) {
+        var start = System.nanoTime();
+        int items = scan.get();
+        LOGGER.info("Scan [{}] read {} items in {} ms", mode, items,
+                (System.nanoTime() - start) / 1_000_000);
+        return items;
+    }
+
+    private static void writeInBatches(List<WriteRequest> requests) {
+        for (int i = 0; i < requests.size(); i += 25) {
+            List<WriteRequest> unprocessed = new ArrayList<>(
+                    requests.subList(i, Math.min(i + 25, requests.size())));
+            while (!unprocessed.isEmpty()) {
+                var response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of("shipment", unprocessed))
+                        .build());
+                unprocessed = new ArrayList<>(
+                        response.unprocessedItems().getOrDefault("shipment", List.of()));
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.ConfigurableApplicationContext;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Starts an instance with the reactive API enabled and downloads the same image with thousands of
+ * concurrent requests. Logs the throughput and how many server threads were needed for it.
+ */
+@Tag("benchmark")
+public class ReactiveDownloadLoadTest extends LocalStackSetupConfigurations {
+
+    private static final String SHIPMENT_ID = "reactive-download-load";
+    private static final String IMAGE_KEY = SHIPMENT_ID + "/image.jpg";
+    private static final int IMAGE_SIZE = 256 * 1024;
+    private static final int CONCURRENT_DOWNLOADS = 2000;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        var image = new byte[IMAGE_SIZE];
+        ThreadLocalRandom.current().nextBytes(image);
+        s3Client.putObject(builder -> builder.bucket(BUCKET_NAME).key(IMAGE_KEY)
+                .contentType("image/jpeg"), RequestBody.fromBytes(image));
+        dynamoDbClient.putItem(builder -> builder.tableName("shipment").item(Map.of(
+                "shipmentId", AttributeValue.fromS(SHIPMENT_ID),
+                "imageLink", AttributeValue.fromS(IMAGE_KEY))));
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        s3Client.deleteObject(builder -> builder.bucket(BUCKET_NAME).key(IMAGE_KEY));
+        dynamoDbClient.deleteItem(builder -> builder.tableName("shipment").key(Map.of(
+                "shipmentId", AttributeValue.fromS(SHIPMENT_ID))));
+    }
+
+    @Test
+    void concurrentDownloadsOnEventLoopThreads() {
+        try (ConfigurableApplicationContext reactive = new SpringApplicationBuilder(
+                ShipmentListDemoApplication.class)
+                .properties(applicationProperties(
+                        "shipment.reactive.enabled=true",
+                        "shipment.reactive.port=0"))
+                .run()) {
+            var port = reactive.getBean("reactiveApiServer", WebServer.class).getPort();
+            var request = HttpRequest.newBuilder(URI.create(
+                    "http://localhost:" + port + "/api/shipment/" + SHIPMENT_ID + "/image/download"))
+                    .GET()
+                    .build();
+
+            var start = System.nanoTime();
+            var downloads = new ArrayList<CompletableFuture<HttpResponse<byte[]>>>();
+            for (int i = 0; i < CONCURRENT_DOWNLOADS; i++) {
+                downloads.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()));
+            }
+            CompletableFuture.allOf(downloads.toArray(CompletableFuture[]::new)).join();
+            var seconds = (System.nanoTime() - start) / 1e9;
+
+            downloads.forEach(download -> {
+                assertEquals(200, download.join().statusCode());
+                assertEquals(IMAGE_SIZE, download.join().body().length);
+            });
+            var serverThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith("reactor-http"))
+                    .count();
+            LOGGER.info("{} concurrent downloads of {} KB: {} downloads/s, {} MB/s on {} event loop threads",
+                    CONCURRENT_DOWNLOADS, IMAGE_SIZE / 1024, Math.round(CONCURRENT_DOWNLOADS / seconds),
+                    Math.round(CONCURRENT_DOWNLOADS * (double) IMAGE_SIZE / (1024 * 1024) / seconds),
+                    serverThreads);
+        }
+    }
+}
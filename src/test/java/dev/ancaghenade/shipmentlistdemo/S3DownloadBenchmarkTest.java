@@ -0,0 +1,123 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.repository.S3StorageService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares a single-stream GET with the parallel ranged download, into a fresh buffer, into one
+ * preallocated buffer that is reused and into a file, and the image download path, for image sizes
+ * from 100KB to 100MB.
+ * Part size and concurrency are the configured shipment.transfer values.
+ */
+@Tag("benchmark")
+public class S3DownloadBenchmarkTest extends LocalStackSetupConfigurations {
+
+    private static final String KEY_PREFIX = "download-benchmark/";
+    private static final int[] SIZES = {100 * 1024, 1024 * 1024, 10 * 1024 * 1024, 100 * 1024 * 1024};
+
+    @Autowired
+    private S3StorageService s3StorageService;
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        for (int size : SIZES) {
+            var content = new byte[size];
+            ThreadLocalRandom.current().nextBytes(content);
+            s3Client.putObject(builder -> builder.bucket(BUCKET_NAME).key(KEY_PREFIX + size),
+                    RequestBody.fromBytes(content));
+        }
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        for (int size : SIZES) {
+            s3Client.deleteObject(builder -> builder.bucket(BUCKET_NAME).key(KEY_PREFIX + size));
+        }
+    }
+
+    @Test
+    void compareSingleStreamAndRangedDownloads() throws Exception {
+        var preallocated = ByteBuffer.allocateDirect(SIZES[SIZES.length - 1]);
+        var file = Files.createTempFile("download-benchmark-", ".img");
+        try {
+            for (int size : SIZES) {
+                var key = KEY_PREFIX + size;
+                // warm up connections before measuring
+                s3StorageService.download(key);
+
+                measure(size, "single stream", () -> s3Client.getObject(builder -> builder
+                        .bucket(BUCKET_NAME).key(key)).readAllBytes().length);
+                measure(size, "ranged, new buffer", () -> s3StorageService.download(key,
+                        objectSize -> ByteBuffer.allocateDirect(Math.toIntExact(objectSize))).remaining());
+                measure(size, "ranged, preallocated buffer", () -> s3StorageService.download(key,
+                        objectSize -> preallocated.clear()).remaining());
+                measure(size, "image path", () -> {
+                    try (var content = s3StorageService.openStream(key, null, null, null)) {
+                        return (int) content.transferTo(OutputStream.nullOutputStream());
+                    }
+                });
+                measure(size, "ranged, file channel", () -> {
+                    try (var channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                        return (int) s3StorageService.download(key, channel);
+                    }
+                });
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void imagePathServesTheWholeObject() throws Exception {
+        // only the largest size is above the multipart threshold and fetched in parts
+        for (int size : SIZES) {
+            var key = KEY_PREFIX + size;
+            byte[] expected;
+            try (var object = s3Client.getObject(builder -> builder.bucket(BUCKET_NAME).key(key))) {
+                expected = digest(object);
+            }
+            try (var content = s3StorageService.openStream(key, null, null, null)) {
+                assertEquals(size, content.response().contentLength());
+                assertArrayEquals(expected, digest(content));
+            }
+        }
+    }
+
+    private static byte[] digest(InputStream content) throws Exception {
+        var digest = MessageDigest.getInstance("SHA-256");
+        try (var digesting = new DigestInputStream(content, digest)) {
+            digesting.transferTo(OutputStream.nullOutputStream());
+        }
+        return digest.digest();
+    }
+
+    private void measure(int size, String mode, Callable<Integer> download) throws Exception {
+        var start = System.nanoTime();
+        int downloaded = download.call();
+        var millis = (System.nanoTime() - start) / 1_000_000.0;
+        assertEquals(size, downloaded);
+        LOGGER.info("{} KB [{}]: {} ms, {} MB/s", size / 1024, mode, Math.round(millis),
+                Math.round(size / (1024.0 * 1024.0) / (millis / 1000)));
+    }
+}
@@ -0,0 +1,79 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.config.HttpClientSettings.Client;
+import dev.ancaghenade.shipmentlistdemo.config.SdkHttpClients;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the per service HTTP settings override the defaults, and that every service gets
+ * the client it is configured with, or an error when that client does not fit the service.
+ */
+class SdkHttpClientsTest {
+
+    @Test
+    void serviceSettingsOverrideDefaults() {
+        var environment = new MockEnvironment()
+                .withProperty("shipment.http.default.max-connections", "50")
+                .withProperty("shipment.http.default.connection-timeout", "2s")
+                .withProperty("shipment.http.s3.max-connections", "200")
+                .withProperty("shipment.http.s3.client", "url-connection");
+        var clients = new SdkHttpClients(environment);
+
+        var s3 = clients.settings("s3");
+        assertEquals(Client.URL_CONNECTION, s3.getClient());
+        assertEquals(200, s3.getMaxConnections());
+        assertEquals(Duration.ofSeconds(2), s3.getConnectionTimeout());
+
+        var dynamoDb = clients.settings("dynamodb");
+        assertNull(dynamoDb.getClient());
+        assertEquals(50, dynamoDb.getMaxConnections());
+        assertNull(dynamoDb.getApiCallTimeout());
+    }
+
+    @Test
+    void clientsPerService() {
+        var environment = new MockEnvironment()
+                .withProperty("shipment.http.s3.client", "url-connection")
+                .withProperty("shipment.http.sqs.client", "crt");
+        var clients = new SdkHttpClients(environment);
+
+        assertInstanceOf(UrlConnectionHttpClient.Builder.class, clients.syncClient("s3"));
+        assertInstanceOf(ApacheHttpClient.Builder.class, clients.syncClient("dynamodb"));
+        assertInstanceOf(AwsCrtAsyncHttpClient.Builder.class, clients.asyncClient("sqs"));
+        assertInstanceOf(NettyNioAsyncHttpClient.Builder.class, clients.asyncClient("s3-async"));
+    }
+
+    @Test
+    void unsupportedClient() {
+        var environment = new MockEnvironment()
+                .withProperty("shipment.http.dynamodb.client", "netty")
+                .withProperty("shipment.http.sqs.client", "apache");
+        var clients = new SdkHttpClients(environment);
+
+        assertThrows(IllegalArgumentException.class, () -> clients.syncClient("dynamodb"));
+        assertThrows(IllegalArgumentException.class, () -> clients.asyncClient("sqs"));
+    }
+
+    @Test
+    void apiCallTimeouts() {
+        var environment = new MockEnvironment()
+                .withProperty("shipment.http.default.api-call-timeout", "10s")
+                .withProperty("shipment.http.dynamodb.api-call-attempt-timeout", "1s");
+        var overrides = new SdkHttpClients(environment).overrideConfiguration("dynamodb").build();
+
+        assertEquals(Duration.ofSeconds(10), overrides.apiCallTimeout().orElseThrow());
+        assertEquals(Duration.ofSeconds(1), overrides.apiCallAttemptTimeout().orElseThrow());
+    }
+}
@@ -0,0 +1,61 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.service.ShipmentService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Deletes shipments whose folders hold more objects than one DeleteObjects request accepts, and
+ * one without any images, in a single bulk call.
+ */
+public class ShipmentDeletionTest extends LocalStackSetupConfigurations {
+
+    private static final String MANY_IMAGES = "bulk-delete-many";
+    private static final String FEW_IMAGES = "bulk-delete-few";
+    private static final String NO_IMAGES = "bulk-delete-none";
+
+    @Autowired
+    private ShipmentService shipmentService;
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        putObjects(MANY_IMAGES, 2500);
+        putObjects(FEW_IMAGES, 3);
+        for (String shipmentId : List.of(MANY_IMAGES, FEW_IMAGES, NO_IMAGES)) {
+            dynamoDbClient.putItem(builder -> builder.tableName("shipment").item(Map.of(
+                    "shipmentId", AttributeValue.fromS(shipmentId))));
+        }
+    }
+
+    @Test
+    void deletesImagesBeyondOneRequestAndAllRecords() {
+        var start = System.nanoTime();
+        shipmentService.deleteShipments(List.of(MANY_IMAGES, FEW_IMAGES, NO_IMAGES));
+        LOGGER.info("Deleted 3 shipments with 2503 images in {} ms",
+                (System.nanoTime() - start) / 1_000_000);
+
+        for (String shipmentId : List.of(MANY_IMAGES, FEW_IMAGES, NO_IMAGES)) {
+            assertEquals(0, s3Client.listObjectsV2(builder -> builder.bucket(BUCKET_NAME)
+                    .prefix(shipmentId + "/")).keyCount());
+            assertFalse(dynamoDbClient.getItem(builder -> builder.tableName("shipment")
+                    .key(Map.of("shipmentId", AttributeValue.fromS(shipmentId)))).hasItem());
+        }
+    }
+
+    private static void putObjects(String shipmentId, int count) {
+        IntStream.range(0, count).parallel().forEach(i -> s3Client.putObject(builder -> builder
+                .bucket(BUCKET_NAME)
+                .key(shipmentId + "/image-" + i + ".jpg"), RequestBody.fromString("image " + i)));
+    }
+}
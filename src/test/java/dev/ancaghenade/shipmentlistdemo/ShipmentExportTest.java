@@ -0,0 +1,109 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports a table of a few thousand shipments, spread over several scan pages, as plain and as
+ * gzip compressed NDJSON and checks every stored shipment comes back exactly once.
+ */
+public class ShipmentExportTest extends LocalStackSetupConfigurations {
+
+    private static final int SHIPMENTS = 3000;
+    private static final String ID_PREFIX = "export-";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        // padded so the table spans more than one 1 MB scan page
+        var padding = "x".repeat(1000);
+        var body = IntStream.range(0, SHIPMENTS)
+                .mapToObj(i -> "{\"shipmentId\": \"" + ID_PREFIX + i + "\", \"weight\": 1.5, "
+                        + "\"imageLink\": \"" + padding + "\"}")
+                .collect(Collectors.joining("\n"));
+        new RestTemplate().postForEntity(BASE_URL + "/api/shipment/bulk",
+                new HttpEntity<>(body, headers), String.class);
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        new RestTemplate().exchange(BASE_URL + "/api/shipment", HttpMethod.DELETE,
+                new HttpEntity<>(IntStream.range(0, SHIPMENTS).mapToObj(i -> ID_PREFIX + i).toList(),
+                        headers), String.class);
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        var response = export("identity");
+
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertTrue(response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow()
+                .startsWith(MediaType.APPLICATION_NDJSON_VALUE));
+        assertNull(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertExported(response.body());
+    }
+
+    @Test
+    void exportGzip() throws Exception {
+        var response = export("gzip");
+
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElseThrow());
+        assertExported(new GZIPInputStream(response.body()));
+    }
+
+    private HttpResponse<InputStream> export(String acceptEncoding) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(BASE_URL + "/api/shipment/export"))
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static void assertExported(InputStream body) throws IOException {
+        Set<String> exported = new HashSet<>();
+        try (var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                var shipment = objectMapper.readTree(line);
+                var id = shipment.get("shipmentId").asText();
+                if (id.startsWith(ID_PREFIX)) {
+                    assertTrue(exported.add(id), "exported twice: " + id);
+                    assertEquals(1.5, shipment.get("weight").asDouble());
+                }
+            }
+        }
+        assertEquals(SHIPMENTS, exported.size());
+    }
+}
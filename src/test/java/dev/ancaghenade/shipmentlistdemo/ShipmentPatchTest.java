@@ -0,0 +1,114 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Partial updates only touch the attributes in the request, bump the version and are rejected when
+ * the If-Match version is outdated.
+ */
+public class ShipmentPatchTest extends LocalStackSetupConfigurations {
+
+    private static final String SHIPMENT_ID = "patch-shipment";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+    }
+
+    @BeforeEach
+    void createShipment() {
+        var address = Address.builder().street("Main Street").number("1").city("Berlin")
+                .postalCode("10115").build();
+        var shipment = Shipment.builder()
+                .shipmentId(SHIPMENT_ID)
+                .weight(2.0)
+                .recipient(Participant.builder().name("Alice").address(address).build())
+                .sender(Participant.builder().name("Bob").address(address).build())
+                .build();
+        restTemplate.postForEntity(BASE_URL + "/api/shipment", shipment, Void.class);
+    }
+
+    @AfterEach
+    void deleteShipment() {
+        restTemplate.delete(BASE_URL + "/api/shipment/" + SHIPMENT_ID);
+    }
+
+    @Test
+    void patchOnlyChangesGivenAttributes() throws Exception {
+        var response = patch(SHIPMENT_ID, "{\"weight\": 3.5, \"recipient\": {\"address\": {\"city\": \"Hamburg\"}}}",
+                "\"1\"");
+
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals("\"2\"", response.headers().firstValue(HttpHeaders.ETAG).orElseThrow());
+
+        var item = dynamoDbClient.getItem(builder -> builder.tableName("shipment")
+                .key(Map.of("shipmentId", AttributeValue.fromS(SHIPMENT_ID)))).item();
+        assertEquals(3.5, Double.parseDouble(item.get("weight").n()));
+        assertEquals("2", item.get("version").n());
+        var recipientAddress = item.get("recipient").m().get("address").m();
+        assertEquals("Hamburg", recipientAddress.get("city").s());
+        assertEquals("Main Street", recipientAddress.get("street").s());
+        assertEquals("Alice", item.get("recipient").m().get("name").s());
+        assertEquals("Berlin", item.get("sender").m().get("address").m().get("city").s());
+    }
+
+    @Test
+    void nullRemovesAttribute() throws Exception {
+        var response = patch(SHIPMENT_ID, "{\"weight\": null}", null);
+
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        var item = dynamoDbClient.getItem(builder -> builder.tableName("shipment")
+                .key(Map.of("shipmentId", AttributeValue.fromS(SHIPMENT_ID)))).item();
+        assertFalse(item.containsKey("weight"));
+    }
+
+    @Test
+    void outdatedVersionIsRejected() throws Exception {
+        assertEquals(HttpStatus.OK.value(), patch(SHIPMENT_ID, "{\"weight\": 4.0}", "\"1\"").statusCode());
+
+        var response = patch(SHIPMENT_ID, "{\"weight\": 5.0}", "\"1\"");
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED.value(), response.statusCode());
+        var item = dynamoDbClient.getItem(builder -> builder.tableName("shipment")
+                .key(Map.of("shipmentId", AttributeValue.fromS(SHIPMENT_ID)))).item();
+        assertEquals(4.0, Double.parseDouble(item.get("weight").n()));
+    }
+
+    @Test
+    void invalidPatches() throws Exception {
+        assertEquals(HttpStatus.NOT_FOUND.value(), patch("no-such-shipment", "{\"weight\": 1.0}", null).statusCode());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), patch(SHIPMENT_ID, "{\"colour\": \"red\"}", null).statusCode());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), patch(SHIPMENT_ID, "{\"version\": 7}", null).statusCode());
+    }
+
+    private HttpResponse<String> patch(String shipmentId, String body, String ifMatch) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(BASE_URL + "/api/shipment/" + shipmentId))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
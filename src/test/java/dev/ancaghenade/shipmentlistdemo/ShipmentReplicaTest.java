@@ -0,0 +1,107 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.repository.ShipmentReplica;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.StreamSpecification;
+import software.amazon.awssdk.services.dynamodb.model.StreamViewType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Starts an instance with the stream-fed replica enabled, writes, updates and deletes a shipment
+ * directly in the table and checks that the replica reflects every change within its staleness
+ * bound.
+ */
+public class ShipmentReplicaTest extends LocalStackSetupConfigurations {
+
+    private static final String SHIPMENT_ID = "replica-shipment";
+    private static final Duration MAX_STALENESS = Duration.ofSeconds(5);
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        var table = dynamoDbClient.describeTable(builder -> builder.tableName("shipment")).table();
+        if (table.streamSpecification() == null
+                || !Boolean.TRUE.equals(table.streamSpecification().streamEnabled())) {
+            // as in terraform/main.tf
+            dynamoDbClient.updateTable(builder -> builder.tableName("shipment")
+                    .streamSpecification(StreamSpecification.builder()
+                            .streamEnabled(true)
+                            .streamViewType(StreamViewType.NEW_AND_OLD_IMAGES)
+                            .build()));
+        }
+    }
+
+    @Test
+    void replicaConvergesWithinMaxStaleness() {
+        try (ConfigurableApplicationContext instance = new SpringApplicationBuilder(
+                ShipmentListDemoApplication.class)
+                .properties(applicationProperties(
+                        "shipment.replica.enabled=true",
+                        "shipment.replica.poll-interval=200ms",
+                        "shipment.replica.max-staleness=" + MAX_STALENESS.toMillis() + "ms"))
+                .run()) {
+            var replica = instance.getBean(ShipmentReplica.class);
+            awaitReplica(replica, "the bootstrap", ShipmentReplica::isFresh);
+
+            dynamoDbClient.putItem(builder -> builder.tableName("shipment").item(Map.of(
+                    "shipmentId", AttributeValue.fromS(SHIPMENT_ID),
+                    "weight", AttributeValue.fromN("1.5"))));
+            awaitReplica(replica, "the insert", r -> find(r).map(Shipment::getWeight)
+                    .filter(weight -> weight == 1.5).isPresent());
+
+            dynamoDbClient.updateItem(builder -> builder.tableName("shipment")
+                    .key(Map.of("shipmentId", AttributeValue.fromS(SHIPMENT_ID)))
+                    .updateExpression("SET weight = :weight")
+                    .expressionAttributeValues(Map.of(":weight", AttributeValue.fromN("4.25"))));
+            awaitReplica(replica, "the update", r -> find(r).map(Shipment::getWeight)
+                    .filter(weight -> weight == 4.25).isPresent());
+
+            dynamoDbClient.deleteItem(builder -> builder.tableName("shipment")
+                    .key(Map.of("shipmentId", AttributeValue.fromS(SHIPMENT_ID))));
+            awaitReplica(replica, "the delete", r -> find(r).isEmpty());
+
+            assertTrue(replica.isFresh());
+        } finally {
+            dynamoDbClient.deleteItem(builder -> builder.tableName("shipment")
+                    .key(Map.of("shipmentId", AttributeValue.fromS(SHIPMENT_ID))));
+        }
+    }
+
+    private static Optional<Shipment> find(ShipmentReplica replica) {
+        return replica.getAllShipments().stream()
+                .filter(shipment -> SHIPMENT_ID.equals(shipment.getShipmentId()))
+                .findFirst();
+    }
+
+    private static void awaitReplica(ShipmentReplica replica, String change,
+            Predicate<ShipmentReplica> converged) {
+        var start = System.nanoTime();
+        var deadline = start + MAX_STALENESS.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (converged.test(replica)) {
+                LOGGER.info("Replica converged after {} in {} ms", change,
+                        (System.nanoTime() - start) / 1_000_000);
+                return;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        fail("Replica did not converge after " + change + " within " + MAX_STALENESS);
+    }
+}
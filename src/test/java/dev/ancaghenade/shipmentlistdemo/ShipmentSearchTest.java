@@ -0,0 +1,98 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentPage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Looks shipments up through the secondary indexes on the flattened participant addresses, page by
+ * page, and checks that other shipments are not returned.
+ */
+public class ShipmentSearchTest extends LocalStackSetupConfigurations {
+
+    private static final String ID_PREFIX = "search-";
+    private static final int SHIPMENTS = 6;
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        var restTemplate = new RestTemplate();
+        // even shipments go from Lyon to Porto, odd ones from Porto to Lyon
+        IntStream.range(0, SHIPMENTS).forEach(i -> restTemplate.postForEntity(BASE_URL + "/api/shipment",
+                Shipment.builder()
+                        .shipmentId(ID_PREFIX + i)
+                        .weight(1.0)
+                        .sender(participant(i % 2 == 0 ? "Lyon" : "Porto", i % 2 == 0 ? "69001" : "4000-001"))
+                        .recipient(participant(i % 2 == 0 ? "Porto" : "Lyon", i % 2 == 0 ? "4000-001" : "69001"))
+                        .build(), Void.class));
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        var restTemplate = new RestTemplate();
+        IntStream.range(0, SHIPMENTS).forEach(i -> restTemplate.delete(BASE_URL + "/api/shipment/" + ID_PREFIX + i));
+    }
+
+    @Test
+    void findByRecipientCity() {
+        assertEquals(List.of("search-0", "search-2", "search-4"),
+                findAll("participant=recipient&city=Porto"));
+    }
+
+    @Test
+    void findBySenderPostalCode() {
+        assertEquals(List.of("search-0", "search-2", "search-4"),
+                findAll("participant=sender&postalCode=69001"));
+    }
+
+    @Test
+    void unknownCityIsEmpty() {
+        assertEquals(List.of(), findAll("participant=recipient&city=Atlantis"));
+    }
+
+    @Test
+    void invalidSearch() {
+        var response = restTemplate.getForEntity(BASE_URL + "/api/shipment/search?city=Lyon&postalCode=69001",
+                String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private List<String> findAll(String query) {
+        List<String> ids = new ArrayList<>();
+        String nextToken = null;
+        int pages = 0;
+        do {
+            var url = BASE_URL + "/api/shipment/search?limit=2&" + query
+                    + (nextToken == null ? "" : "&nextToken=" + nextToken);
+            ShipmentPage page = restTemplate.getForObject(url, ShipmentPage.class);
+            page.getItems().stream()
+                    .map(Shipment::getShipmentId)
+                    .filter(id -> id.startsWith(ID_PREFIX))
+                    .forEach(ids::add);
+            nextToken = page.getNextToken();
+            pages++;
+        } while (nextToken != null && pages < 10);
+        assertNull(nextToken);
+        return ids.stream().sorted().toList();
+    }
+
+    private static Participant participant(String city, String postalCode) {
+        return Participant.builder()
+                .name("Search " + city)
+                .address(Address.builder().street("Rue").number("1").city(city).postalCode(postalCode).build())
+                .build();
+    }
+}
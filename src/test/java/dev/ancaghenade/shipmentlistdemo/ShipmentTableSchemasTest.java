@@ -0,0 +1,108 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.ShipmentTableSchemas;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the hand-built schema maps shipments exactly like the bean schema derived from the
+ * annotations, including nulls, empty addresses and the derived index keys, and logs the cost of
+ * mapping with both.
+ */
+class ShipmentTableSchemasTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShipmentTableSchemasTest.class);
+
+    private final TableSchema<Shipment> beanSchema = TableSchema.fromBean(Shipment.class);
+    private final TableSchema<Shipment> staticSchema = ShipmentTableSchemas.SHIPMENT;
+
+    @Test
+    void sameAttributesAndKeys() {
+        assertEquals(new HashSet<>(beanSchema.attributeNames()),
+                new HashSet<>(staticSchema.attributeNames()));
+
+        TableMetadata bean = beanSchema.tableMetadata();
+        TableMetadata stat = staticSchema.tableMetadata();
+        assertEquals(bean.primaryPartitionKey(), stat.primaryPartitionKey());
+        assertEquals(indexKeys(bean), indexKeys(stat));
+    }
+
+    @Test
+    void sameItemMaps() {
+        for (Shipment shipment : shipments()) {
+            assertEquals(beanSchema.itemToMap(shipment, true), staticSchema.itemToMap(shipment, true));
+            assertEquals(beanSchema.itemToMap(shipment, false), staticSchema.itemToMap(shipment, false));
+
+            var item = beanSchema.itemToMap(shipment, true);
+            assertEquals(beanSchema.mapToItem(item), staticSchema.mapToItem(item));
+            assertEquals(shipment, staticSchema.mapToItem(staticSchema.itemToMap(shipment, true)));
+        }
+    }
+
+    @Test
+    void mappingCost() {
+        var shipments = shipments();
+        var items = shipments.stream().map(shipment -> beanSchema.itemToMap(shipment, true)).toList();
+        for (int round = 0; round < 3; round++) {
+            long bean = timeRoundTrips(beanSchema, shipments, items);
+            long stat = timeRoundTrips(staticSchema, shipments, items);
+            LOGGER.info("100k mapping round trips: bean schema {} ms, static schema {} ms",
+                    bean / 1_000_000, stat / 1_000_000);
+        }
+        // the shipment-benchmarks module measures this and the startup cost properly
+    }
+
+    private static long timeRoundTrips(TableSchema<Shipment> schema, List<Shipment> shipments,
+            List<Map<String, AttributeValue>> items) {
+        long start = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            int index = i % shipments.size();
+            schema.itemToMap(shipments.get(index), true);
+            schema.mapToItem(items.get(index));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String indexKeys(TableMetadata metadata) {
+        return metadata.indices().stream()
+                .filter(index -> !index.name().equals(TableMetadata.primaryIndexName()))
+                .map(index -> index.name() + "=" + metadata.indexPartitionKey(index.name()))
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    private static List<Shipment> shipments() {
+        return List.of(
+                Shipment.builder()
+                        .shipmentId("full")
+                        .weight(2.5)
+                        .imageLink("full/image.jpg")
+                        .version(3L)
+                        .recipient(new Participant("Harry Potter",
+                                new Address("4000-001", "Rua Nova", "12", "Porto", "Ring twice")))
+                        .sender(new Participant("Ron Weasley",
+                                new Address("69001", "Rue Neuve", "3", "Lyon", null)))
+                        .build(),
+                // empty strings are not index keys, missing fields are written as nulls when asked
+                Shipment.builder()
+                        .shipmentId("sparse")
+                        .recipient(new Participant("Nobody", new Address("", null, null, "", null)))
+                        .sender(new Participant("Anonymous", null))
+                        .build(),
+                Shipment.builder().shipmentId("empty").build());
+    }
+}
@@ -0,0 +1,128 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.controller.MessageReceiver;
+import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
+import io.awspring.cloud.sqs.listener.ListenerMode;
+import io.awspring.cloud.sqs.listener.MessageListener;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.Message;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drains a dedicated LocalStack queue with a listener container built by the application's own
+ * container factory, interceptors included, for each combination of the shipment.sqs settings, and
+ * logs the messages per second reached. Every batch is handed to the application's
+ * {@link MessageReceiver}, so the numbers include its coalescing and DynamoDB updates.
+ */
+@Tag("benchmark")
+public class SqsListenerThroughputTest extends LocalStackSetupConfigurations {
+
+    private static final int MESSAGES = 2000;
+
+    private static SqsAsyncClient sqsClient;
+    private static String queueUrl;
+
+    @BeforeAll
+    public static void setup() {
+        LocalStackSetupConfigurations.setupConfig();
+        sqsClient = SqsAsyncClient.builder()
+                .region(region)
+                .endpointOverride(localStack.getEndpointOverride(LocalStackContainer.Service.SQS))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(localStack.getAccessKey(), localStack.getSecretKey())))
+                .build();
+        queueUrl = sqsClient.createQueue(builder -> builder.queueName("sqs-throughput-benchmark"))
+                .join().queueUrl();
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        sqsClient.deleteQueue(builder -> builder.queueUrl(queueUrl)).join();
+        sqsClient.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void throughputForListenerSettings() throws InterruptedException {
+        int[][] settings = {
+                // max concurrent messages, max messages per poll
+                {1, 1},
+                {10, 1},
+                {10, 10},
+                {50, 10},
+                {100, 10}
+        };
+        for (int[] setting : settings) {
+            try (ConfigurableApplicationContext instance = new SpringApplicationBuilder(
+                    ShipmentListDemoApplication.class)
+                    .properties(applicationProperties(
+                            "shipment.sqs.max-concurrent-messages=" + setting[0],
+                            "shipment.sqs.max-messages-per-poll=" + setting[1],
+                            "shipment.sqs.poll-timeout=1s"))
+                    .run()) {
+                SqsMessageListenerContainerFactory<Object> factory = instance.getBean(
+                        "defaultSqsListenerContainerFactory", SqsMessageListenerContainerFactory.class);
+                var receiver = instance.getBean(MessageReceiver.class);
+                sendMessages();
+                var received = new CountDownLatch(MESSAGES);
+                var container = factory.createContainer(queueUrl);
+                // like the @SqsListener method, which takes the whole batch as a List<String>
+                container.configure(options -> options.listenerMode(ListenerMode.BATCH));
+                container.setMessageListener(new MessageListener<Object>() {
+                    @Override
+                    public void onMessage(Message<Object> message) {
+                        onMessage(List.of(message));
+                    }
+
+                    @Override
+                    public void onMessage(Collection<Message<Object>> messages) {
+                        receiver.loadMessagesFromQueue(messages.stream()
+                                .map(message -> String.valueOf(message.getPayload()))
+                                .toList());
+                        messages.forEach(message -> received.countDown());
+                    }
+                });
+
+                var start = System.nanoTime();
+                container.start();
+                try {
+                    assertTrue(received.await(5, TimeUnit.MINUTES));
+                } finally {
+                    container.stop();
+                }
+                var seconds = (System.nanoTime() - start) / 1e9;
+                LOGGER.info("maxConcurrentMessages={} maxMessagesPerPoll={}: {} messages/s",
+                        setting[0], setting[1], Math.round(MESSAGES / seconds));
+            }
+        }
+    }
+
+    private static void sendMessages() {
+        for (int i = 0; i < MESSAGES; i += 10) {
+            var entries = IntStream.range(i, i + 10)
+                    .mapToObj(n -> SendMessageBatchRequestEntry.builder()
+                            .id(String.valueOf(n))
+                            .messageBody("{\"Message\":\"shipment-" + n + "/picture.jpg\"}")
+                            .build())
+                    .toList();
+            sqsClient.sendMessageBatch(builder -> builder.queueUrl(queueUrl).entries(entries)).join();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.Suggestion;
+import dev.ancaghenade.shipmentlistdemo.repository.TypeaheadIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the lookups and incremental updates of the typeahead index. Lookup latency is measured by
+ * TypeaheadBenchmark in the shipment-benchmarks module.
+ */
+class TypeaheadIndexTest {
+
+    @Test
+    void incrementalUpdates() {
+        var index = new TypeaheadIndex(null, new TaskExecutors(false));
+        var shipment = Shipment.builder()
+                .shipmentId("typeahead-update")
+                .recipient(participant("Zoë Quokkafield", "Zürich"))
+                .sender(participant("Harry Potter", "London"))
+                .build();
+        index.onSaved(shipment);
+
+        assertEquals(List.of(new Suggestion("Zoë Quokkafield", "name", 1)), index.suggest("zoe", 10));
+        assertEquals(List.of(new Suggestion("Zoë Quokkafield", "name", 1)), index.suggest("quokk", 10));
+        assertEquals(List.of(new Suggestion("Harry Potter", "name", 1)), index.suggest("HARRY pot", 10));
+        assertEquals(List.of(new Suggestion("Zürich", "city", 1)), index.suggest("zur", 10));
+
+        shipment.setRecipient(participant("Zoë Quokkafield", "Bern"));
+        index.onSaved(shipment);
+        assertEquals(List.of(), index.suggest("zur", 10));
+        assertEquals(List.of(new Suggestion("Bern", "city", 1)), index.suggest("be", 10));
+
+        index.onDeleted("typeahead-update");
+        assertEquals(List.of(), index.suggest("quokk", 10));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void limitMustBePositive() {
+        var index = new TypeaheadIndex(null, new TaskExecutors(false));
+        index.onSaved(Shipment.builder()
+                .shipmentId("typeahead-limit")
+                .recipient(participant("Harry Potter", "London"))
+                .build());
+
+        assertEquals(List.of(new Suggestion("Harry Potter", "name", 1)), index.suggest("harry", 1));
+        assertThrows(IllegalArgumentException.class, () -> index.suggest("harry", 0));
+        assertThrows(IllegalArgumentException.class, () -> index.suggest("harry", -1));
+    }
+
+    private static Participant participant(String name, String city) {
+        return Participant.builder()
+                .name(name)
+                .address(Address.builder().street("Main Street").number("1").city(city).postalCode("12345").build())
+                .build();
+    }
+}
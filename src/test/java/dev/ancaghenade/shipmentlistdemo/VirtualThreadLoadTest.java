@@ -0,0 +1,91 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Puts the same concurrent load on the application running on platform threads (the test context
+ * on port 8081) and on a second instance started with spring.threads.virtual.enabled. Every
+ * request reads a page from DynamoDB, so Tomcat threads spend most of their time blocked on the
+ * SDK. Throughput and latency percentiles are logged for both.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadLoadTest extends LocalStackSetupConfigurations {
+
+    private static final int REQUESTS = 5000;
+    // above Tomcat's default of 200 worker threads
+    private static final int IN_FLIGHT = 500;
+    private static final String PATH = "/api/shipment/page?limit=20";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void compareVirtualAndPlatformThreads() throws Exception {
+        var platform = load("platform threads", BASE_URL);
+
+        try (ConfigurableApplicationContext virtual = new SpringApplicationBuilder(
+                ShipmentListDemoApplication.class)
+                .properties(applicationProperties("spring.threads.virtual.enabled=true"))
+                .run()) {
+            var port = virtual.getEnvironment().getProperty("local.server.port");
+            var virtualThreads = load("virtual threads", "http://localhost:" + port);
+            assertEquals(platform, virtualThreads);
+        }
+    }
+
+    /**
+     * Returns the number of successful responses, which has to be the same in both modes.
+     */
+    private int load(String mode, String baseUrl) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + PATH)).GET().build();
+        // warm up connections, the bean mapper and the JIT
+        for (int i = 0; i < 200; i++) {
+            httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        var inFlight = new Semaphore(IN_FLIGHT);
+        var latencies = Collections.synchronizedList(new ArrayList<Long>());
+        var responses = new ArrayList<CompletableFuture<Integer>>();
+        var start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            inFlight.acquire();
+            var sent = System.nanoTime();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> {
+                        latencies.add(System.nanoTime() - sent);
+                        return response.statusCode() == 200 ? 1 : 0;
+                    })
+                    .whenComplete((ok, e) -> inFlight.release()));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        var seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        var succeeded = responses.stream().mapToInt(CompletableFuture::join).sum();
+        LOGGER.info("{}: {} requests/s, p50 {} ms, p99 {} ms, {} of {} succeeded", mode,
+                Math.round(REQUESTS / seconds), percentile(sorted, 0.50), percentile(sorted, 0.99),
+                succeeded, REQUESTS);
+        return succeeded;
+    }
+
+    private static long percentile(List<Long> sortedNanos, double percentile) {
+        var index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1_000_000;
+    }
+}
@@ -0,0 +1,25 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.config.VisibilityExtendingInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that visibility timeouts SQS cannot extend are rejected when the interceptor is created,
+ * instead of failing for the first message.
+ */
+class VisibilityExtendingInterceptorTest {
+
+    @Test
+    void visibilityTimeoutBelowOneSecondIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new VisibilityExtendingInterceptor(Duration.ZERO, Duration.ofMinutes(10)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new VisibilityExtendingInterceptor(Duration.ofMillis(500), Duration.ofMinutes(10)));
+
+        new VisibilityExtendingInterceptor(Duration.ofSeconds(1), Duration.ofMinutes(10)).shutdown();
+    }
+}
@@ -0,0 +1,70 @@
+package dev.ancaghenade.shipmentlistdemo;
+
+import dev.ancaghenade.shipmentlistdemo.config.TaskExecutors;
+import dev.ancaghenade.shipmentlistdemo.entity.Address;
+import dev.ancaghenade.shipmentlistdemo.entity.Participant;
+import dev.ancaghenade.shipmentlistdemo.entity.Shipment;
+import dev.ancaghenade.shipmentlistdemo.entity.WeightStats;
+import dev.ancaghenade.shipmentlistdemo.repository.WeightStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the incrementally maintained weight statistics against hand computed values, including
+ * updates and deletes of the shipments holding min and max. Read and write latency is measured by
+ * WeightStatisticsBenchmark in the shipment-benchmarks module.
+ */
+class WeightStatisticsTest {
+
+    @Test
+    void statisticsFollowWrites() {
+        // the table is never scanned, start() is not called
+        var statistics = new WeightStatistics(null, new TaskExecutors(false), new double[]{1, 5});
+        statistics.onSaved(shipment("a", 0.5, "Lyon", "Porto"));
+        statistics.onSaved(shipment("b", 3.0, "Lyon", "Porto"));
+        statistics.onSaved(shipment("c", 7.0, "Lyon", "Paris"));
+
+        var lyon = statistics.stats("recipient", "Lyon").get(0);
+        assertEquals(3, lyon.getCount());
+        assertEquals(10.5, lyon.getTotal(), 1e-9);
+        assertEquals(3.5, lyon.getMean(), 1e-9);
+        assertEquals(0.5, lyon.getMin());
+        assertEquals(7.0, lyon.getMax());
+        assertEquals(List.of(1L, 1L, 1L), lyon.getHistogram().stream().map(WeightStats.Bucket::getCount).toList());
+        assertNull(lyon.getHistogram().get(0).getFrom());
+        assertEquals(5.0, lyon.getHistogram().get(2).getFrom());
+
+        // the max moves to another city, the min is deleted
+        statistics.onSaved(shipment("c", 7.0, "Bern", "Paris"));
+        statistics.onDeleted("a");
+        lyon = statistics.stats("recipient", "Lyon").get(0);
+        assertEquals(1, lyon.getCount());
+        assertEquals(3.0, lyon.getMin());
+        assertEquals(3.0, lyon.getMax());
+
+        var porto = statistics.stats("sender", "Porto").get(0);
+        assertEquals(1, porto.getCount());
+        assertEquals(3.0, porto.getTotal(), 1e-9);
+        assertEquals(List.of("Lyon", "Bern"), statistics.stats("recipient", null).stream()
+                .map(WeightStats::getCity).toList());
+
+        statistics.onDeleted("b");
+        assertEquals(List.of("Bern"), statistics.stats("recipient", null).stream()
+                .map(WeightStats::getCity).toList());
+    }
+
+    private static Shipment shipment(String shipmentId, double weight, String recipientCity, String senderCity) {
+        return Shipment.builder()
+                .shipmentId(shipmentId)
+                .weight(weight)
+                .recipient(Participant.builder().name("Recipient")
+                        .address(Address.builder().city(recipientCity).build()).build())
+                .sender(Participant.builder().name("Sender")
+                        .address(Address.builder().city(senderCity).build()).build())
+                .build();
+    }
+}
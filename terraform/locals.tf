@@ -2,4 +2,7 @@ locals {
   aws_region = "us-east-1"
   json_data  = file("./data.json")
   tf_data    = jsondecode(local.json_data)
+
+  # one global secondary index per key, named <key>-index
+  shipment_index_keys = ["recipientCity", "recipientPostalCode", "senderCity", "senderPostalCode"]
 }
\ No newline at end of file
@@ -54,6 +54,26 @@ resource "aws_dynamodb_table" "shipment" {
     type = "S"
   }
   hash_key = "shipmentId"
+
+  # flattened participant addresses, written by the application next to the nested maps
+  dynamic "attribute" {
+    for_each = local.shipment_index_keys
+    content {
+      name = attribute.value
+      type = "S"
+    }
+  }
+
+  dynamic "global_secondary_index" {
+    for_each = local.shipment_index_keys
+    content {
+      name            = "${global_secondary_index.value}-index"
+      hash_key        = global_secondary_index.value
+      projection_type = "ALL"
+      read_capacity   = 5
+      write_capacity  = 5
+    }
+  }
   server_side_encryption {
     enabled = true
   }